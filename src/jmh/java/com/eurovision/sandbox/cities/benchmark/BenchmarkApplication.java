@@ -0,0 +1,91 @@
+package com.eurovision.sandbox.cities.benchmark;
+
+import com.eurovision.sandbox.cities.CitiesApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Starts the application against an in-memory H2 database, without web server for benchmarks that go through the
+ * repositories, and with it for load tests
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * @param extraArguments additional application arguments, such as properties to override
+     * @return running application context. It should be closed on tear down
+     */
+    public static ConfigurableApplicationContext start(String... extraArguments) {
+        return start(WebApplicationType.NONE, extraArguments);
+    }
+
+    /**
+     * Starts the application with its web server on a random port, read from the local.server.port property
+     * @param extraArguments additional application arguments, such as properties to override
+     * @return running application context. It should be closed on tear down
+     */
+    public static ConfigurableApplicationContext startServer(String... extraArguments) {
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0"));
+        arguments.addAll(List.of(extraArguments));
+        return start(WebApplicationType.SERVLET, arguments.toArray(String[]::new));
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType,
+                                                        String... extraArguments) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                //Tables and indexes of the application are added once Hibernate has created those of the entities
+                "--spring.sql.init.schema-locations=classpath:db/schema.sql",
+                "--spring.jpa.defer-datasource-initialization=true",
+                //Rows are inserted directly without changing the data versions, so a snapshot left by another run
+                //would look up to date
+                "--cities.snapshot.directory=",
+                "--logging.level.root=WARN"
+        ));
+        arguments.addAll(List.of(extraArguments));
+        return new SpringApplicationBuilder(CitiesApplication.class)
+                .web(webApplicationType)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * Inserts cities with random lower case names of the given length
+     * @param context running application context
+     * @param numberOfCities number of cities to insert
+     * @param nameLength number of letters of every name
+     */
+    public static void insertCities(ConfigurableApplicationContext context, int numberOfCities, int nameLength) {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(numberOfCities);
+        for (int id = 1; id <= numberOfCities; id++) {
+            rows.add(new Object[]{id, randomWord(random, nameLength), nameLength});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "insert into cities (id, name, name_length) values (?, ?, ?)", rows);
+    }
+
+    /**
+     * @param random source of randomness, seeded for repeatable runs
+     * @param length number of letters
+     * @return random lower case word
+     */
+    public static String randomWord(Random random, int length) {
+        char[] letters = new char[length];
+        for (int i = 0; i < length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+
+}
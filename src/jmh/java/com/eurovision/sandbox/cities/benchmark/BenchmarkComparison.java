@@ -0,0 +1,57 @@
+package com.eurovision.sandbox.cities.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files, such as the recorded baseline and the latest run, and prints the change of
+ * every benchmark present in both
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    /**
+     * @param args path of the baseline result file and path of the result file to compare with it
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: BenchmarkComparison <baseline.json> <result.json>");
+        }
+        Map<String, JsonNode> baseline = readScores(new File(args[0]));
+        Map<String, JsonNode> result = readScores(new File(args[1]));
+
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Result", "Change");
+        result.forEach((benchmark, metric) -> {
+            JsonNode baselineMetric = baseline.get(benchmark);
+            if (baselineMetric == null) {
+                return;
+            }
+            double before = baselineMetric.get("score").asDouble();
+            double after = metric.get("score").asDouble();
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %s%n", benchmark, before, after,
+                    (after - before) * 100 / before, metric.get("scoreUnit").asText());
+        });
+    }
+
+    /**
+     * Reads the primary and secondary (profiler) metrics of a result file, keyed by benchmark, parameters and metric
+     */
+    private static Map<String, JsonNode> readScores(File file) throws IOException {
+        Map<String, JsonNode> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            String key = run.get("benchmark").asText() + run.path("params");
+            scores.put(key, run.get("primaryMetric"));
+            run.path("secondaryMetrics").fields().forEachRemaining(secondary ->
+                    scores.put(key + " " + secondary.getKey(), secondary.getValue()));
+        }
+        return scores;
+    }
+
+}
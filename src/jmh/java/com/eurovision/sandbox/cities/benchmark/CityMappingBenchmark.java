@@ -0,0 +1,56 @@
+package com.eurovision.sandbox.cities.benchmark;
+
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.infrastructure.db.entity.CityEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of mapping a page of CityEntity to City, through the Lombok builder and through the constructor used by the
+ * repository projections
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CityMappingBenchmark {
+
+    @Param({"20", "1000"})
+    private int pageSize;
+
+    private List<CityEntity> entities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        entities = new ArrayList<>(pageSize);
+        for (int id = 1; id <= pageSize; id++) {
+            entities.add(CityEntity.builder().id(id).name(BenchmarkApplication.randomWord(random, 9)).build());
+        }
+    }
+
+    @Benchmark
+    public List<City> mapWithBuilder() {
+        return entities.stream()
+                .map(entity -> City.builder()
+                        .id(entity.getId())
+                        .name(entity.getName())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<City> mapWithConstructor() {
+        return entities.stream()
+                .map(entity -> new City(entity.getId(), entity.getName()))
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.eurovision.sandbox.cities.benchmark;
+
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.infrastructure.db.entity.CityEntity;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares reading a page of cities as managed entities mapped to City, as the service used to, with the read-only
+ * projection straight into City. Run with -prof gc to compare allocation per page as well as latency
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CityPageReadBenchmark {
+
+    private static final int NUMBER_OF_CITIES = 100_000;
+    private static final int PAGE = 10;
+
+    @Param({"20", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private CitiesRepository citiesRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.insertCities(context, NUMBER_OF_CITIES, 9);
+        citiesRepository = context.getBean(CitiesRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<City> entityPage() {
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("select c from CityEntity c order by c.name asc, c.id asc", CityEntity.class)
+                .setFirstResult(PAGE * pageSize)
+                .setMaxResults(pageSize)
+                .getResultStream()
+                .map(entity -> City.builder()
+                        .id(entity.getId())
+                        .name(entity.getName())
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<City> projectionPage() {
+        return readOnlyTransactionTemplate.execute(status -> citiesRepository
+                .findCitySliceOrderedByName(PageRequest.of(PAGE, pageSize))
+                .getContent());
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.eurovision.sandbox.cities.benchmark;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of the REST layer with platform request threads and with virtual threads (the virtual Spring profile).
+ * Every mode starts the application on a random port against an in-memory H2 database, then a fixed number of
+ * clients send requests back to back. Throughput and latency percentiles of each mode are printed at the end.
+ * <p>
+ * The virtual mode is skipped unless the test runs on Java 21 or newer
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "modes", "platform,virtual",
+            "clients", "1000",
+            "warmupSeconds", "10",
+            "durationSeconds", "30",
+            "cities", "100000",
+            "path", "/api/cities/queryByCursor?size=20"
+    );
+
+    private LoadTest() {
+    }
+
+    /**
+     * @param args settings as name=value, overriding the defaults: modes, clients, warmupSeconds, durationSeconds,
+     *             cities and path
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> settings = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] setting = arg.split("=", 2);
+            if (setting.length != 2 || !DEFAULTS.containsKey(setting[0])) {
+                throw new IllegalArgumentException("Usage: LoadTest [name=value]... with names " + DEFAULTS.keySet());
+            }
+            settings.put(setting[0], setting[1]);
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (String mode : settings.get("modes").split(",")) {
+            if (mode.equals("virtual") && Runtime.version().feature() < 21) {
+                System.out.println("Skipping virtual mode: it needs Java 21, running on " + Runtime.version());
+                continue;
+            }
+            results.add(run(mode, settings));
+        }
+
+        System.out.printf("%n%-10s %8s %10s %12s %10s %10s %10s %8s%n", "Mode", "Clients", "Requests",
+                "Requests/s", "p50 ms", "p99 ms", "max ms", "Errors");
+        for (Result result : results) {
+            System.out.printf("%-10s %8d %10d %12.1f %10.2f %10.2f %10.2f %8d%n", result.mode, result.clients,
+                    result.latencies.length, result.latencies.length / result.seconds,
+                    percentile(result.latencies, 0.50), percentile(result.latencies, 0.99),
+                    percentile(result.latencies, 1.0), result.errors);
+        }
+    }
+
+    private static Result run(String mode, Map<String, String> settings) throws InterruptedException {
+        int clients = Integer.parseInt(settings.get("clients"));
+        List<String> arguments = new ArrayList<>(List.of(
+                //Every client keeps its connection open, so Tomcat must accept all of them
+                "--server.tomcat.max-connections=" + Math.max(8192, clients * 2)
+        ));
+        if (mode.equals("virtual")) {
+            arguments.add("--spring.profiles.active=virtual");
+        }
+
+        try (ConfigurableApplicationContext context = BenchmarkApplication.startServer(
+                arguments.toArray(String[]::new))) {
+            BenchmarkApplication.insertCities(context, Integer.parseInt(settings.get("cities")), 9);
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + settings.get("path"));
+            System.out.printf("%s mode: %d clients requesting %s%n", mode, clients, uri);
+
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+            long warmupNanos = Duration.ofSeconds(Long.parseLong(settings.get("warmupSeconds"))).toNanos();
+            long durationNanos = Duration.ofSeconds(Long.parseLong(settings.get("durationSeconds"))).toNanos();
+            long start = System.nanoTime();
+            long measureFrom = start + warmupNanos;
+            long measureUntil = measureFrom + durationNanos;
+
+            AtomicLong errors = new AtomicLong();
+            long[][] latenciesByClient = new long[clients][];
+            CountDownLatch finished = new CountDownLatch(clients);
+            for (int client = 0; client < clients; client++) {
+                int index = client;
+                Thread thread = new Thread(() -> {
+                    latenciesByClient[index] = sendRequests(httpClient, request, measureFrom, measureUntil, errors);
+                    finished.countDown();
+                }, "load-test-client-" + client);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            finished.await();
+
+            long[] latencies = Arrays.stream(latenciesByClient).flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Result(mode, clients, durationNanos / 1e9, latencies, errors.get());
+        }
+    }
+
+    /**
+     * Sends requests back to back until the end of the test, recording the latency of those sent after the warmup
+     * @return latencies in nanoseconds
+     */
+    private static long[] sendRequests(HttpClient httpClient, HttpRequest request, long measureFrom,
+                                       long measureUntil, AtomicLong errors) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        long sentAt;
+        while ((sentAt = System.nanoTime()) < measureUntil) {
+            boolean succeeded;
+            try {
+                succeeded = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+            } catch (IOException e) {
+                succeeded = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long latency = System.nanoTime() - sentAt;
+            if (sentAt < measureFrom) {
+                continue;
+            }
+            if (!succeeded) {
+                errors.incrementAndGet();
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    /**
+     * @param sortedLatencies latencies in nanoseconds, sorted
+     * @param quantile between 0 and 1
+     * @return latency in milliseconds below which the given fraction of requests completed
+     */
+    private static double percentile(long[] sortedLatencies, double quantile) {
+        if (sortedLatencies.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1e6;
+    }
+
+    private record Result(String mode, int clients, double seconds, long[] latencies, long errors) {
+    }
+
+}
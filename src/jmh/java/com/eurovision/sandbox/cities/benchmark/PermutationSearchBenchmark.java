@@ -0,0 +1,97 @@
+package com.eurovision.sandbox.cities.benchmark;
+
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.CityPermutations;
+import com.eurovision.sandbox.cities.domain.model.NormalizedCity;
+import com.eurovision.sandbox.cities.domain.service.CityPermutationsScorer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permutation search hot path against synthetic dictionaries of five to seven-letter words. Words and cities only
+ * use the first letters of the alphabet, so cities match a realistic number of words
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermutationSearchBenchmark {
+
+    private static final int NUMBER_OF_CITIES = 1_000;
+    private static final int ALPHABET_SIZE = 12;
+
+    @Param({"10000", "100000", "1000000"})
+    private int dictionarySize;
+
+    private List<String> dictionaryWords;
+    private List<NormalizedCity> cities;
+    private AnagramIndex dictionary;
+    private ForkJoinPool permutationsPool;
+    private CityPermutationsScorer sequentialScorer;
+    private CityPermutationsScorer parallelScorer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        dictionaryWords = new ArrayList<>(dictionarySize);
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionaryWords.add(randomWord(random, 5 + random.nextInt(3)));
+        }
+        cities = new ArrayList<>(NUMBER_OF_CITIES);
+        for (int id = 1; id <= NUMBER_OF_CITIES; id++) {
+            String name = randomWord(random, 7);
+            cities.add(NormalizedCity.builder().city(new City(id, name)).normalizedName(name).build());
+        }
+        dictionary = AnagramIndex.of(dictionaryWords);
+        permutationsPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        sequentialScorer = new CityPermutationsScorer(new ForkJoinPool(1), new SimpleMeterRegistry());
+        parallelScorer = new CityPermutationsScorer(permutationsPool, new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        permutationsPool.shutdown();
+    }
+
+    @Benchmark
+    public AnagramIndex buildDictionaryIndex() {
+        return AnagramIndex.of(dictionaryWords);
+    }
+
+    @Benchmark
+    public void findWordsPerCity(Blackhole blackhole) {
+        for (NormalizedCity city : cities) {
+            blackhole.consume(dictionary.findWords(city.getNormalizedName(), 5, 7));
+        }
+    }
+
+    @Benchmark
+    public Optional<CityPermutations> mostPermutableCitySequential() {
+        return sequentialScorer.findMostPermutableCity(cities, dictionary, 5, 7);
+    }
+
+    @Benchmark
+    public Optional<CityPermutations> mostPermutableCityParallel() {
+        return parallelScorer.findMostPermutableCity(cities, dictionary, 5, 7);
+    }
+
+    private static String randomWord(Random random, int length) {
+        char[] letters = new char[length];
+        for (int i = 0; i < length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(ALPHABET_SIZE));
+        }
+        return new String(letters);
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.eurovision.sandbox.cities.benchmark;
+
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.dto.PaginatedResponseDto;
+import com.eurovision.sandbox.cities.dto.PermutableCityResponseDto;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization of the response payloads in each wire format the endpoints can produce, with the same ObjectMapper
+ * settings Spring Boot uses by default, and the cost of gzip compressing a page as the server does. The bytes on the
+ * wire of each payload, before and after compression, are printed when the trial starts
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int numberOfElements;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private PaginatedResponseDto page;
+    private PermutableCityResponseDto mostPermutableCity;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper(factoryOf(format)).findAndRegisterModules();
+        Random random = new Random(42);
+        List<City> cities = new ArrayList<>(numberOfElements);
+        List<String> words = new ArrayList<>(numberOfElements);
+        for (int id = 1; id <= numberOfElements; id++) {
+            cities.add(new City(id, BenchmarkApplication.randomWord(random, 9)));
+            words.add(BenchmarkApplication.randomWord(random, 5 + random.nextInt(3)));
+        }
+        page = PaginatedResponseDto.builder()
+                .content(cities)
+                .totalElements(1_000_000)
+                .totalPages(1_000_000 / numberOfElements)
+                .last(false)
+                .size(numberOfElements)
+                .number(1)
+                .build();
+        mostPermutableCity = PermutableCityResponseDto.builder()
+                .city(cities.get(0))
+                .wordsInDictionary(words)
+                .build();
+
+        System.out.printf("%n%s of %d elements: page %d bytes (%d gzipped), "
+                        + "most permutable city %d bytes (%d gzipped)%n",
+                format, numberOfElements,
+                serializePage().length, serializeAndCompressPage().length,
+                serializeMostPermutableCity().length, gzip(serializeMostPermutableCity()).length);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeMostPermutableCity() throws IOException {
+        return objectMapper.writeValueAsBytes(mostPermutableCity);
+    }
+
+    @Benchmark
+    public byte[] serializeAndCompressPage() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, page);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(payload);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static JsonFactory factoryOf(String format) {
+        return switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.eurovision.sandbox.cities.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.CityPermutations;
+import com.eurovision.sandbox.cities.domain.model.NormalizedCity;
+import com.eurovision.sandbox.cities.domain.service.CityPermutationsScorer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost of scoring a city, with the scorer logging at INFO as configured by default. scoreCities and
+ * scoreCitiesWithoutLogging should allocate the same bytes per operation (gc.alloc.rate.norm), since per-city
+ * messages are only built at debug level. formatMessages allocates what formatting the per-city message of every
+ * city costs, as it did before whatever the log level
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringLogBenchmark {
+
+    private static final int NUMBER_OF_CITIES = 1_000;
+    private static final int DICTIONARY_SIZE = 10_000;
+    private static final int ALPHABET_SIZE = 12;
+
+    private List<NormalizedCity> cities;
+    private AnagramIndex dictionary;
+    private ForkJoinPool permutationsPool;
+    private CityPermutationsScorer scorer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        //Without Spring, logback logs everything at DEBUG
+        Logger scorerLogger = (Logger) LoggerFactory.getLogger(CityPermutationsScorer.class);
+        scorerLogger.setLevel(ch.qos.logback.classic.Level.INFO);
+
+        Random random = new Random(42);
+        List<String> dictionaryWords = new ArrayList<>(DICTIONARY_SIZE);
+        for (int i = 0; i < DICTIONARY_SIZE; i++) {
+            dictionaryWords.add(randomWord(random, 5 + random.nextInt(3)));
+        }
+        cities = new ArrayList<>(NUMBER_OF_CITIES);
+        for (int id = 1; id <= NUMBER_OF_CITIES; id++) {
+            String name = randomWord(random, 7);
+            cities.add(NormalizedCity.builder().city(new City(id, name)).normalizedName(name).build());
+        }
+        dictionary = AnagramIndex.of(dictionaryWords);
+        permutationsPool = new ForkJoinPool(1);
+        scorer = new CityPermutationsScorer(permutationsPool, new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        permutationsPool.shutdown();
+    }
+
+    @Benchmark
+    public void scoreCities(Blackhole blackhole) {
+        for (NormalizedCity city : cities) {
+            blackhole.consume(scorer.scoreCity(city, dictionary, 5, 7));
+        }
+    }
+
+    @Benchmark
+    public void scoreCitiesWithoutLogging(Blackhole blackhole) {
+        for (NormalizedCity city : cities) {
+            blackhole.consume(CityPermutations.builder()
+                    .city(city.getCity())
+                    .words(dictionary.findWords(city.getNormalizedName(), 5, 7))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public void formatMessages(Blackhole blackhole) {
+        for (NormalizedCity city : cities) {
+            blackhole.consume(String.format("finding permutations of %d to %d elements for city %s", 5, 7,
+                    city.getCity().getName()));
+        }
+    }
+
+    private static String randomWord(Random random, int length) {
+        char[] letters = new char[length];
+        for (int i = 0; i < length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(ALPHABET_SIZE));
+        }
+        return new String(letters);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.eurovision.sandbox.cities.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class PermutationsConfig {
+
+    /**
+     * Pool in which cities are scored in parallel when looking for the most permutable one
+     * @param parallelism Number of worker threads. Zero or less uses one per available processor
+     * @return ForkJoinPool shut down along with the application context
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool permutationsPool(@Value("${cities.permutations.parallelism:0}") int parallelism,
+                                         MeterRegistry meterRegistry) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism
+                : Runtime.getRuntime().availableProcessors());
+        new ExecutorServiceMetrics(pool, "permutationsPool", Tags.empty()).bindTo(meterRegistry);
+        return pool;
+    }
+
+    /**
+     * Executor running permutation jobs in the background, apart from the request threads. Jobs beyond the queue
+     * capacity are rejected instead of waiting, and each running job scores its cities in the permutations pool
+     * @param concurrency Number of jobs running at the same time
+     * @param queueCapacity Number of jobs waiting for a free thread
+     * @return ThreadPoolExecutor shut down along with the application context, discarding queued jobs
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor permutationJobExecutor(
+            @Value("${cities.permutations.jobs.concurrency:1}") int concurrency,
+            @Value("${cities.permutations.jobs.queue-capacity:16}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("permutation-job-"));
+        //Queued and running jobs, and completed job counts, are published as executor metrics
+        new ExecutorServiceMetrics(executor, "permutationJobExecutor", Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+}
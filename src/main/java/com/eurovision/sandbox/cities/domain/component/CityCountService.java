@@ -0,0 +1,20 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+/**
+ * Provides the total number of cities without counting the table on every request
+ */
+public interface CityCountService {
+
+    /**
+     * Method to get the total number of cities. The value is cached for a while and, in estimated mode, read from
+     * the table statistics instead of counted
+     * @return number of cities
+     */
+    long countCities();
+
+    /**
+     * Method to discard the cached total, so the next call counts the cities again
+     */
+    void invalidate();
+
+}
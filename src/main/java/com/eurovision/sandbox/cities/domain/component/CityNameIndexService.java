@@ -0,0 +1,25 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+import com.eurovision.sandbox.cities.domain.model.NormalizedCity;
+
+import java.util.List;
+
+/**
+ * Keeps the normalized names of cities in memory, grouped by their number of letters, so names are only read and
+ * normalized when the cities change. Each group is loaded the first time it is needed
+ */
+public interface CityNameIndexService {
+
+    /**
+     * Method to get the cities whose normalized name has the given number of letters
+     * @param length number of letters of the normalized name
+     * @return List of NormalizedCity ordered by id
+     */
+    List<NormalizedCity> findCitiesWithLength(int length);
+
+    /**
+     * Method to discard the loaded names, so the next call reads the cities again
+     */
+    void invalidate();
+
+}
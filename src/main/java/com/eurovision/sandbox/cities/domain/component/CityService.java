@@ -1,8 +1,13 @@
 package com.eurovision.sandbox.cities.domain.component;
 
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.dto.CursorPaginatedResponseDto;
 import com.eurovision.sandbox.cities.dto.PaginatedResponseDto;
 import com.eurovision.sandbox.cities.dto.PermutableCityResponseDto;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface CityService {
 
     /**
@@ -19,10 +24,65 @@ public interface CityService {
      */
     PaginatedResponseDto findCitiesInAlphabeticalOrderAscendant(int page, int size);
 
+    /**
+     * @param cursor Token returned as next by the previous page, or null for the first page
+     * @param size The number of elements per page
+     * @param withTotal Whether the total number of cities should be counted
+     * @return CursorPaginatedResponseDto with list of cities in ascending alphabetical order
+     */
+    CursorPaginatedResponseDto findCitiesInAlphabeticalOrderAfter(String cursor, int size, boolean withTotal);
+
+    /**
+     * Method to go through all cities in ascending alphabetical order without loading them all in memory
+     * @param consumer receives every city, one at a time
+     */
+    void forEachCityInAlphabeticalOrder(Consumer<City> consumer);
+
     /**
      * Method to find the most permutable city;
      * @return PermutableCityResponseDto
      */
     PermutableCityResponseDto findMostPermutableCity();
 
+    /**
+     * Method to find the city, among those with a name of the given length, from whose letters the most words in the
+     * dictionary can be built
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param cityLength Length of the names of the cities to check
+     * @return PermutableCityResponseDto
+     */
+    PermutableCityResponseDto findMostPermutableCity(int minWord, int maxWord, int cityLength);
+
+    /**
+     * Method to find the city, among those with a name of the given length, from whose letters the most words in the
+     * dictionary can be built, reporting the progress of the search
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param cityLength Length of the names of the cities to check
+     * @param progress ScoringProgress notified of every scored city. Exceptions thrown by it stop the search
+     * @return PermutableCityResponseDto
+     */
+    PermutableCityResponseDto findMostPermutableCity(int minWord, int maxWord, int cityLength,
+                                                     ScoringProgress progress);
+
+    /**
+     * Method to rank the cities, among those with a name of the given length, by the number of words in the
+     * dictionary that can be built from their letters
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param cityLength Length of the names of the cities to check
+     * @param count Maximum number of cities in the ranking
+     * @return List of PermutableCityResponseDto with the most permutable city first
+     */
+    List<PermutableCityResponseDto> findMostPermutableCities(int minWord, int maxWord, int cityLength, int count);
+
+    /**
+     * Method to check the lengths of a search for the most permutable city before it is started
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param cityLength Length of the names of the cities to check
+     */
+    void validateWordAndCityLengths(int minWord, int maxWord, int cityLength);
+
 }
@@ -0,0 +1,27 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+import com.eurovision.sandbox.cities.domain.model.City;
+
+import java.util.List;
+
+/**
+ * Suggests cities while their name is typed, from an index of all city names kept in memory. The index is loaded the
+ * first time it is needed and again after cities change, so suggestions never query the database
+ */
+public interface CitySuggestionService {
+
+    /**
+     * Method to find the cities whose name starts with the prefix. Case, accents and characters other than letters
+     * are ignored, so "sao p" suggests "São Paulo"
+     * @param prefix the beginning of the name
+     * @param limit maximum number of cities returned
+     * @return List of City in the order of their normalized names
+     */
+    List<City> suggestCities(String prefix, int limit);
+
+    /**
+     * Method to discard the index, so the next call reads the cities again
+     */
+    void invalidate();
+
+}
@@ -0,0 +1,42 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+import com.eurovision.sandbox.cities.domain.model.DataVersion;
+import org.springframework.core.Ordered;
+
+/**
+ * Counts the changes made to cities and words, so responses derived from them can be tagged with the version of the
+ * data and clients can revalidate them without the data being read again
+ */
+public interface DataVersionService {
+
+    //Order of the listeners that refresh the data derived from cities or words once a change commits
+    int REFRESH_ORDER = 0;
+
+    //Order of the listeners that discard the cached versions once a change commits. They run after those refreshing
+    //derived data, so a new version is only served once the data it describes has been refreshed
+    int INVALIDATION_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    /**
+     * Method to get the version of the data of responses derived from cities only
+     * @return DataVersion with the entity tag and last modification of the cities
+     */
+    DataVersion findCitiesVersion();
+
+    /**
+     * Method to get the version of the data of responses derived from dictionary words only
+     * @return DataVersion with the entity tag and last modification of the words
+     */
+    DataVersion findWordsVersion();
+
+    /**
+     * Method to get the version of the data of responses derived from both cities and words
+     * @return DataVersion with the entity tag and last modification of either of them
+     */
+    DataVersion findCitiesAndWordsVersion();
+
+    /**
+     * Method to discard the cached versions, so the next call reads them again
+     */
+    void invalidate();
+
+}
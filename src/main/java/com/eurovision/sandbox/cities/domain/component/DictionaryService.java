@@ -0,0 +1,25 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
+
+/**
+ * Keeps a snapshot of the dictionary in memory, grouped by word length, so searches reuse it until the words change
+ * instead of reading the word table again
+ */
+public interface DictionaryService {
+
+    /**
+     * Method to get the index of the words whose normalized length is in the range. Lengths missing from the
+     * snapshot are read together in a single query
+     * @param minLength Minimum number of letters of the words
+     * @param maxLength Maximum number of letters of the words
+     * @return AnagramIndex of the words, shared by every search of the same range
+     */
+    AnagramIndex findDictionary(int minLength, int maxLength);
+
+    /**
+     * Method to discard the snapshot, so the next call reads the words again
+     */
+    void invalidate();
+
+}
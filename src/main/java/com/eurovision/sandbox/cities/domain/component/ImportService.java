@@ -0,0 +1,30 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+import com.eurovision.sandbox.cities.domain.model.ImportFormat;
+import com.eurovision.sandbox.cities.dto.ImportResultDto;
+
+import java.io.InputStream;
+
+/**
+ * Loads cities and words in bulk. Rows are read while they are received and written in batches, each one in its own
+ * transaction, so data derived from them is refreshed once per batch
+ */
+public interface ImportService {
+
+    /**
+     * Method to insert or replace cities by id
+     * @param body rows of cities, read as they are received
+     * @param format format of the rows
+     * @return ImportResultDto with the number of rows imported and the rows per second
+     */
+    ImportResultDto importCities(InputStream body, ImportFormat format);
+
+    /**
+     * Method to insert or replace dictionary words by id
+     * @param body rows of words, read as they are received
+     * @param format format of the rows
+     * @return ImportResultDto with the number of rows imported and the rows per second
+     */
+    ImportResultDto importWords(InputStream body, ImportFormat format);
+
+}
@@ -0,0 +1,15 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+/**
+ * Keeps the stored length of every city name and word, which cities and words are read by. Rows written through
+ * the application get it when they are written, but rows written directly in database do not
+ */
+public interface NameLengthService {
+
+    /**
+     * Method to store the length of the cities and words written without it
+     * @return number of cities and words updated
+     */
+    long fillMissingLengths();
+
+}
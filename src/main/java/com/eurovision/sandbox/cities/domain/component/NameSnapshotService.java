@@ -0,0 +1,28 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+import com.eurovision.sandbox.cities.domain.index.NameSnapshot;
+
+import java.util.Optional;
+
+/**
+ * Keeps the names of all cities and words in snapshot files, so the data kept in memory is loaded from a mapped file
+ * when the application starts instead of read from database. A snapshot is only used while the version of its table
+ * is the one it was written at, and written again when the application starts with a stale one
+ */
+public interface NameSnapshotService {
+
+    /**
+     * Method to get the snapshot of the cities, with their ids, if it is up to date. The first call since the
+     * application started writes it again from database if it is missing or stale
+     * @return Optional with the snapshot, empty if cities changed since it was written or snapshots are disabled
+     */
+    Optional<NameSnapshot> findCitiesSnapshot();
+
+    /**
+     * Method to get the snapshot of the dictionary words if it is up to date. The first call since the application
+     * started writes it again from database if it is missing or stale
+     * @return Optional with the snapshot, empty if words changed since it was written or snapshots are disabled
+     */
+    Optional<NameSnapshot> findWordsSnapshot();
+
+}
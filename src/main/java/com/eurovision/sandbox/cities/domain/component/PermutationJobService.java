@@ -0,0 +1,42 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+import com.eurovision.sandbox.cities.dto.PermutableCityResponseDto;
+import com.eurovision.sandbox.cities.dto.PermutationJobDto;
+
+/**
+ * Runs searches for the most permutable city as background jobs, so they do not hold a request thread while cities
+ * are scored
+ */
+public interface PermutationJobService {
+
+    /**
+     * Method to start a search. A search with the same lengths that is still queued or running is reused instead of
+     * starting another one
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param cityLength Length of the names of the cities to check
+     * @return PermutationJobDto with the status of the job
+     */
+    PermutationJobDto submit(int minWord, int maxWord, int cityLength);
+
+    /**
+     * @param jobId id of the job returned when it was submitted
+     * @return PermutationJobDto with the status and progress of the job
+     */
+    PermutationJobDto findJob(String jobId);
+
+    /**
+     * @param jobId id of the job returned when it was submitted
+     * @return PermutableCityResponseDto with the result of a job that succeeded
+     */
+    PermutableCityResponseDto findJobResult(String jobId);
+
+    /**
+     * Method to cancel a job. Queued jobs never start, running jobs stop before scoring their next city, and
+     * finished jobs are not changed
+     * @param jobId id of the job returned when it was submitted
+     * @return PermutationJobDto with the status of the job
+     */
+    PermutationJobDto cancel(String jobId);
+
+}
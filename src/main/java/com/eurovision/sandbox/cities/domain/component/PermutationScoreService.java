@@ -0,0 +1,36 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+import com.eurovision.sandbox.cities.domain.model.CityPermutations;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the words that can be built with the letters of every seven-letter city precomputed, so the most permutable
+ * city can be read instead of calculated
+ */
+public interface PermutationScoreService {
+
+    int MIN_WORD = 5;
+    int MAX_WORD = 7;
+    int CITY_LENGTH = 7;
+
+    /**
+     * Method to read the most permutable city from the precomputed scores. Ties are broken by city id
+     * @return CityPermutations with the city with most words, or empty if the scores are not available
+     */
+    Optional<CityPermutations> findMostPermutableCity();
+
+    /**
+     * Method to read the most permutable cities from the precomputed scores. Ties are broken by city id
+     * @param count Maximum number of cities returned
+     * @return List of CityPermutations with most words first, or empty if the scores are not available
+     */
+    List<CityPermutations> findMostPermutableCities(int count);
+
+    /**
+     * Method to recompute the scores of all cities from scratch
+     */
+    void rebuild();
+
+}
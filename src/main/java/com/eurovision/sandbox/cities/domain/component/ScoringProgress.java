@@ -0,0 +1,25 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+/**
+ * Receives the progress of a search for the most permutable city. Any exception thrown by it stops the search, which
+ * is how a search is cancelled
+ */
+public interface ScoringProgress {
+
+    ScoringProgress NONE = new ScoringProgress() {
+    };
+
+    /**
+     * Method called once the cities to score are known, before any of them is scored
+     * @param cities number of cities that will be scored
+     */
+    default void started(int cities) {
+    }
+
+    /**
+     * Method called after each city is scored, from the thread that scored it
+     */
+    default void cityScored() {
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.eurovision.sandbox.cities.domain.component;
+
+import com.eurovision.sandbox.cities.dto.AnagramsResponseDto;
+
+/**
+ * Looks up dictionary words in the in-memory dictionary snapshot, without reading the word table
+ */
+public interface WordService {
+
+    /**
+     * Method to find the dictionary words that can be built with some of the given letters
+     * @param letters letters to build words with. Case, accents and characters other than letters are ignored
+     * @param minLength Minimum number of letters of the words
+     * @param maxLength Maximum number of letters of the words, or null to allow as many as there are letters
+     * @return AnagramsResponseDto with the normalized letters and the words, shortest first
+     */
+    AnagramsResponseDto findAnagrams(String letters, int minLength, Integer maxLength);
+
+}
@@ -0,0 +1,15 @@
+package com.eurovision.sandbox.cities.domain.event;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * Published when cities are inserted, updated or deleted, so data derived from them can be refreshed
+ */
+@Value
+public class CitiesChangedEvent {
+
+    Set<Integer> cityIds;
+
+}
@@ -0,0 +1,16 @@
+package com.eurovision.sandbox.cities.domain.event;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * Published when words are inserted, updated or deleted, so data derived from the dictionary can be refreshed.
+ * For updates, both the previous and the new spelling of the word are included
+ */
+@Value
+public class WordsChangedEvent {
+
+    Set<String> words;
+
+}
@@ -0,0 +1,33 @@
+package com.eurovision.sandbox.cities.domain.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class ConflictException extends ProcessingException {
+
+    private static final String TYPE_MESSAGE_CODE = "Conflict";
+
+    private ConflictException(final String title, final String message) {
+        super(HttpStatus.CONFLICT, TYPE_MESSAGE_CODE, title, message);
+    }
+
+    private ConflictException(final String title, final String message, Object... parameters) {
+        super(HttpStatus.CONFLICT, TYPE_MESSAGE_CODE, title, message, parameters);
+    }
+
+    public static ConflictException of(final String message) {
+        return new ConflictException(message, message);
+    }
+
+    public static ConflictException of(final String title, final String message) {
+        return new ConflictException(title, message);
+    }
+
+    public static ConflictException of(final String message, Object... parameters) {
+        return new ConflictException(message, message, parameters);
+    }
+
+    public static ConflictException of(final String title, final String message, Object... parameters) {
+        return new ConflictException(title, message, parameters);
+    }
+
+}
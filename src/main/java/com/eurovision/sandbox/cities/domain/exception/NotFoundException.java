@@ -0,0 +1,33 @@
+package com.eurovision.sandbox.cities.domain.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class NotFoundException extends ProcessingException {
+
+    private static final String TYPE_MESSAGE_CODE = "NotFound";
+
+    private NotFoundException(final String title, final String message) {
+        super(HttpStatus.NOT_FOUND, TYPE_MESSAGE_CODE, title, message);
+    }
+
+    private NotFoundException(final String title, final String message, Object... parameters) {
+        super(HttpStatus.NOT_FOUND, TYPE_MESSAGE_CODE, title, message, parameters);
+    }
+
+    public static NotFoundException of(final String message) {
+        return new NotFoundException(message, message);
+    }
+
+    public static NotFoundException of(final String title, final String message) {
+        return new NotFoundException(title, message);
+    }
+
+    public static NotFoundException of(final String message, Object... parameters) {
+        return new NotFoundException(message, message, parameters);
+    }
+
+    public static NotFoundException of(final String title, final String message, Object... parameters) {
+        return new NotFoundException(title, message, parameters);
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.eurovision.sandbox.cities.domain.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class ServiceUnavailableException extends ProcessingException {
+
+    private static final String TYPE_MESSAGE_CODE = "ServiceUnavailable";
+
+    private ServiceUnavailableException(final String title, final String message) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, TYPE_MESSAGE_CODE, title, message);
+    }
+
+    private ServiceUnavailableException(final String title, final String message, Object... parameters) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, TYPE_MESSAGE_CODE, title, message, parameters);
+    }
+
+    public static ServiceUnavailableException of(final String message) {
+        return new ServiceUnavailableException(message, message);
+    }
+
+    public static ServiceUnavailableException of(final String title, final String message) {
+        return new ServiceUnavailableException(title, message);
+    }
+
+    public static ServiceUnavailableException of(final String message, Object... parameters) {
+        return new ServiceUnavailableException(message, message, parameters);
+    }
+
+    public static ServiceUnavailableException of(final String title, final String message, Object... parameters) {
+        return new ServiceUnavailableException(title, message, parameters);
+    }
+
+}
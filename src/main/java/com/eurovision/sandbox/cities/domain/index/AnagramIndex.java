@@ -0,0 +1,400 @@
+package com.eurovision.sandbox.cities.domain.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory dictionary index keyed by the letter histogram of each word. Two words are anagrams of each other if and
+ * only if they share the same histogram, so every word that can be built from a subset of the letters of a name is
+ * found by looking up the histograms of the name's sub-multisets instead of generating every permutation. When a name
+ * has more sub-multisets than the dictionary has histograms, the histograms are checked against the name instead, so
+ * the cost of a search never exceeds the smaller of both.
+ * <p>
+ * Histograms of words made of the letters a to z are packed into two longs, thirteen letters per long and four bits
+ * per letter: three bits for the count and a guard bit that makes the subset test a single subtraction. Their words
+ * are stored as bytes in one shared array, so the dictionary holds no object per word and matching a name allocates
+ * nothing but its matches. Words using other letters, or a letter more than seven times, are kept by their sorted
+ * signature and always checked one by one.
+ * <p>
+ * Lengths are numbers of letters, as NameNormalizer counts them, so a letter outside the Basic Multilingual Plane
+ * counts once even if it takes two chars
+ */
+public class AnagramIndex {
+
+    private static final int LETTERS = 'z' - 'a' + 1;
+    private static final int LETTERS_PER_LONG = 13;
+    private static final int BITS_PER_LETTER = 4;
+    private static final int MAX_PACKED_COUNT = 7;
+
+    //Guard bit of every letter of a packed long
+    private static final long GUARD = 0x0008_8888_8888_8888L;
+
+    //Packed histograms sorted by word length, the histograms of words of length l are those in
+    //[byLength[l], byLength[l + 1]). Packed words only have letters a to z, so their length in chars is their length
+    private final long[] histogramLow;
+    private final long[] histogramHigh;
+    private final int[] byLength;
+
+    //Words of histogram h are the words in [firstWord[h], firstWord[h + 1]), stored back to back from letterOffset[h]
+    private final int[] firstWord;
+    private final int[] letterOffset;
+    private final byte[] wordLetters;
+
+    //Open-addressing hash table of histogram index + 1, zero marking an empty slot
+    private final int[] slots;
+
+    //Words that can't be packed, by their signature: their letters sorted by code point
+    private final Map<String, Set<String>> unpackedBySignature;
+
+    private AnagramIndex(Map<Histogram, Set<String>> wordsByHistogram, Map<String, Set<String>> unpackedBySignature) {
+        List<Map.Entry<Histogram, Set<String>>> histograms = new ArrayList<>(wordsByHistogram.entrySet());
+        histograms.sort(Map.Entry.comparingByKey(Comparator.comparingInt(Histogram::length)
+                .thenComparingLong(Histogram::low).thenComparingLong(Histogram::high)));
+
+        int size = histograms.size();
+        int maxLength = size == 0 ? 0 : histograms.get(size - 1).getKey().length();
+        histogramLow = new long[size];
+        histogramHigh = new long[size];
+        byLength = new int[maxLength + 2];
+        firstWord = new int[size + 1];
+        letterOffset = new int[size + 1];
+
+        int words = 0;
+        int letters = 0;
+        for (int h = 0; h < size; h++) {
+            Histogram histogram = histograms.get(h).getKey();
+            histogramLow[h] = histogram.low();
+            histogramHigh[h] = histogram.high();
+            byLength[histogram.length() + 1] = h + 1;
+            firstWord[h] = words;
+            letterOffset[h] = letters;
+            words += histograms.get(h).getValue().size();
+            letters += histograms.get(h).getValue().size() * histogram.length();
+        }
+        firstWord[size] = words;
+        letterOffset[size] = letters;
+        for (int length = 1; length < byLength.length; length++) {
+            byLength[length] = Math.max(byLength[length], byLength[length - 1]);
+        }
+
+        wordLetters = new byte[letters];
+        int position = 0;
+        for (Map.Entry<Histogram, Set<String>> histogram : histograms) {
+            for (String word : histogram.getValue()) {
+                for (int i = 0; i < word.length(); i++) {
+                    wordLetters[position++] = (byte) word.charAt(i);
+                }
+            }
+        }
+
+        slots = new int[Integer.highestOneBit(Math.max(size, 1) * 2) * 2];
+        for (int h = 0; h < size; h++) {
+            int slot = slot(histogramLow[h], histogramHigh[h]);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = h + 1;
+        }
+
+        this.unpackedBySignature = unpackedBySignature;
+    }
+
+    /**
+     * Builds the index from a collection of dictionary words. Words are normalized with NameNormalizer, so words
+     * differing only in case, accents or non-letter characters are indexed once
+     * @param words dictionary words
+     * @return AnagramIndex containing all words
+     */
+    public static AnagramIndex of(Collection<String> words) {
+        Map<Histogram, Set<String>> wordsByHistogram = new LinkedHashMap<>();
+        Map<String, Set<String>> unpackedBySignature = new HashMap<>();
+        for (String word : words) {
+            String folded = NameNormalizer.normalize(word);
+            Histogram histogram = Histogram.of(folded);
+            if (histogram != null) {
+                wordsByHistogram.computeIfAbsent(histogram, k -> new LinkedHashSet<>()).add(folded);
+            } else {
+                unpackedBySignature.computeIfAbsent(signature(folded), k -> new LinkedHashSet<>()).add(folded);
+            }
+        }
+        return new AnagramIndex(wordsByHistogram, unpackedBySignature);
+    }
+
+    /**
+     * Finds every dictionary word of the given length that is a permutation of some of the letters of the name.
+     * Words are returned in lower case and in the same order a depth-first enumeration of the name's permutations
+     * would first produce them
+     * @param name the name whose letters are used to build words, normalized with NameNormalizer
+     * @param length number of letters of the words to find
+     * @return List of matching words, without duplicates
+     */
+    public List<String> findWords(String name, int length) {
+        return findWords(name, length, length);
+    }
+
+    /**
+     * Finds every dictionary word with a length in the given range that is a permutation of some of the letters of
+     * the name. Words are returned in lower case, shortest first, and for each length in the same order a
+     * depth-first enumeration of the name's permutations would first produce them
+     * @param name the name whose letters are used to build words, normalized with NameNormalizer
+     * @param minLength minimum number of letters of the words to find
+     * @param maxLength maximum number of letters of the words to find
+     * @return List of matching words, without duplicates
+     */
+    public List<String> findWords(String name, int minLength, int maxLength) {
+        int min = Math.max(minLength, 1);
+        int[] letters = fold(name);
+        int max = Math.min(maxLength, letters.length);
+        if (min > max) {
+            return new ArrayList<>();
+        }
+
+        //Count the letters a to z of the name, capped to the most a packed word can use
+        int[] counts = new int[LETTERS];
+        for (int letter : letters) {
+            if (letter >= 'a' && letter <= 'z' && counts[letter - 'a'] < MAX_PACKED_COUNT) {
+                counts[letter - 'a']++;
+            }
+        }
+
+        List<int[]> matches = new ArrayList<>();
+        int packedMax = Math.min(max, byLength.length - 2);
+        if (min <= packedMax) {
+            if (countSubsets(counts, min, packedMax) <= byLength[packedMax + 1] - byLength[min]) {
+                int[] present = new int[LETTERS];
+                int presentSize = 0;
+                for (int letter = 0; letter < LETTERS; letter++) {
+                    if (counts[letter] > 0) {
+                        present[presentSize++] = letter;
+                    }
+                }
+                collectSubsets(letters, present, presentSize, counts, 0, 0L, 0L, 0, min, packedMax, matches);
+            } else {
+                long low = pack(counts, 0) | GUARD;
+                long high = pack(counts, LETTERS_PER_LONG) | GUARD;
+                for (int h = byLength[min]; h < byLength[packedMax + 1]; h++) {
+                    if (((low - histogramLow[h]) & GUARD) == GUARD && ((high - histogramHigh[h]) & GUARD) == GUARD) {
+                        collectWords(letters, h, matches);
+                    }
+                }
+            }
+        }
+
+        if (!unpackedBySignature.isEmpty()) {
+            int[] sorted = letters.clone();
+            Arrays.sort(sorted);
+            unpackedBySignature.forEach((signature, words) -> {
+                int length = NameNormalizer.length(signature);
+                if (length >= min && length <= max && isSubset(signature, sorted)) {
+                    words.forEach(word -> matches.add(firstPositions(letters, word)));
+                }
+            });
+        }
+
+        //Sort matches by length and by the positions of the letters they take from the name (the permutation order)
+        matches.sort(Comparator.comparingInt((int[] positions) -> positions.length).thenComparing(Arrays::compare));
+
+        int[] nameLetters = name.codePoints().toArray();
+        List<String> result = new ArrayList<>(matches.size());
+        for (int[] positions : matches) {
+            StringBuilder word = new StringBuilder(positions.length);
+            for (int position : positions) {
+                word.appendCodePoint(nameLetters[position]);
+            }
+            result.add(word.toString().toLowerCase());
+        }
+        return result;
+    }
+
+    /**
+     * Enumerates every sub-multiset of the present letters with a size in the range, adding the words whose histogram
+     * matches it
+     */
+    private void collectSubsets(int[] letters, int[] present, int presentSize, int[] counts, int index, long low,
+                                long high, int size, int min, int max, List<int[]> matches) {
+        if (index == presentSize) {
+            if (size >= min) {
+                int histogram = find(low, high);
+                if (histogram >= 0) {
+                    collectWords(letters, histogram, matches);
+                }
+            }
+            return;
+        }
+        int letter = present[index];
+        int maxTaken = Math.min(counts[letter], max - size);
+        int shift = (letter % LETTERS_PER_LONG) * BITS_PER_LETTER;
+        for (int taken = 0; taken <= maxTaken; taken++) {
+            long added = (long) taken << shift;
+            if (letter < LETTERS_PER_LONG) {
+                collectSubsets(letters, present, presentSize, counts, index + 1, low | added, high, size + taken, min,
+                        max, matches);
+            } else {
+                collectSubsets(letters, present, presentSize, counts, index + 1, low, high | added, size + taken, min,
+                        max, matches);
+            }
+        }
+    }
+
+    private void collectWords(int[] letters, int histogram, List<int[]> matches) {
+        int length = (letterOffset[histogram + 1] - letterOffset[histogram])
+                / (firstWord[histogram + 1] - firstWord[histogram]);
+        for (int offset = letterOffset[histogram]; offset < letterOffset[histogram + 1]; offset += length) {
+            matches.add(firstPositions(letters, offset, length));
+        }
+    }
+
+    /**
+     * Looks up a packed histogram in the hash table
+     * @return index of the histogram, or -1 if no word has it
+     */
+    private int find(long low, long high) {
+        int slot = slot(low, high);
+        while (slots[slot] != 0) {
+            int histogram = slots[slot] - 1;
+            if (histogramLow[histogram] == low && histogramHigh[histogram] == high) {
+                return histogram;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        return -1;
+    }
+
+    private int slot(long low, long high) {
+        long hash = (low * 0x9E37_79B9_7F4A_7C15L) ^ (high * 0xC2B2_AE3D_27D4_EB4FL);
+        return (int) (hash ^ (hash >>> 32)) & (slots.length - 1);
+    }
+
+    /**
+     * Counts the sub-multisets with a size in the range, as the coefficients of the product of (1 + x + ... + x^c)
+     * for every letter count c
+     */
+    private static long countSubsets(int[] counts, int min, int max) {
+        long[] subsetsBySize = new long[max + 1];
+        subsetsBySize[0] = 1;
+        for (int count : counts) {
+            if (count == 0) {
+                continue;
+            }
+            long[] next = new long[max + 1];
+            for (int size = 0; size <= max; size++) {
+                for (int taken = 0; taken <= count && size + taken <= max; taken++) {
+                    next[size + taken] += subsetsBySize[size];
+                }
+            }
+            subsetsBySize = next;
+        }
+        long total = 0;
+        for (int size = min; size <= max; size++) {
+            total += subsetsBySize[size];
+        }
+        return total;
+    }
+
+    private static long pack(int[] counts, int firstLetter) {
+        long packed = 0;
+        for (int letter = firstLetter; letter < Math.min(firstLetter + LETTERS_PER_LONG, LETTERS); letter++) {
+            packed |= (long) counts[letter] << ((letter - firstLetter) * BITS_PER_LETTER);
+        }
+        return packed;
+    }
+
+    /**
+     * Checks whether every letter of the signature is available in the sorted letters, merging both sorted sequences
+     */
+    private static boolean isSubset(String signature, int[] sortedLetters) {
+        int position = 0;
+        for (int i = 0; i < signature.length(); i += Character.charCount(signature.codePointAt(i))) {
+            int letter = signature.codePointAt(i);
+            while (position < sortedLetters.length && sortedLetters[position] < letter) {
+                position++;
+            }
+            if (position == sortedLetters.length || sortedLetters[position] != letter) {
+                return false;
+            }
+            position++;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the lexicographically smallest sequence of positions of the name that spells the packed word stored at
+     * the offset. Taking the earliest unused matching letter at every step gives that sequence
+     */
+    private int[] firstPositions(int[] letters, int offset, int length) {
+        boolean[] used = new boolean[letters.length];
+        int[] positions = new int[length];
+        for (int i = 0; i < length; i++) {
+            positions[i] = firstUnused(letters, used, wordLetters[offset + i]);
+        }
+        return positions;
+    }
+
+    private static int[] firstPositions(int[] letters, String word) {
+        boolean[] used = new boolean[letters.length];
+        return word.codePoints().map(letter -> firstUnused(letters, used, letter)).toArray();
+    }
+
+    private static int firstUnused(int[] letters, boolean[] used, int letter) {
+        int position = 0;
+        while (used[position] || letters[position] != letter) {
+            position++;
+        }
+        used[position] = true;
+        return position;
+    }
+
+    /**
+     * Folds every letter the same way String.equalsIgnoreCase compares them
+     * @return the code points of the folded letters
+     */
+    private static int[] fold(String value) {
+        return value.codePoints().map(c -> Character.toLowerCase(Character.toUpperCase(c))).toArray();
+    }
+
+    private static String signature(String foldedWord) {
+        int[] letters = foldedWord.codePoints().sorted().toArray();
+        return new String(letters, 0, letters.length);
+    }
+
+    /**
+     * Letter histogram of a word packed into two longs, used as a key while the index is built
+     */
+    private record Histogram(long low, long high, int length) {
+
+        /**
+         * @return the packed histogram of the folded word, or null if it uses a character other than a to z or a
+         * letter more than seven times
+         */
+        static Histogram of(String foldedWord) {
+            long low = 0;
+            long high = 0;
+            for (int i = 0; i < foldedWord.length(); i++) {
+                int letter = foldedWord.charAt(i) - 'a';
+                if (letter < 0 || letter >= LETTERS) {
+                    return null;
+                }
+                //A count of eight reaches the guard bit
+                long added = 1L << ((letter % LETTERS_PER_LONG) * BITS_PER_LETTER);
+                if (letter < LETTERS_PER_LONG) {
+                    low += added;
+                } else {
+                    high += added;
+                }
+                if (((low | high) & GUARD) != 0) {
+                    return null;
+                }
+            }
+            return new Histogram(low, high, foldedWord.length());
+        }
+    }
+
+}
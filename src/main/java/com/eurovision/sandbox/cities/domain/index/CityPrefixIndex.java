@@ -0,0 +1,95 @@
+package com.eurovision.sandbox.cities.domain.index;
+
+import com.eurovision.sandbox.cities.domain.model.City;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * In-memory index of cities sorted by their name normalized with NameNormalizer. The cities whose normalized name
+ * starts with a prefix are next to each other, so they are found with a binary search for the first of them. The
+ * index holds two arrays and is never modified, so it is safe to share between threads
+ */
+public class CityPrefixIndex {
+
+    //Cities with the same normalized name are ordered by their name and then by id
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::normalizedName)
+            .thenComparing(entry -> entry.city().getName())
+            .thenComparingLong(entry -> entry.city().getId());
+
+    private final String[] normalizedNames;
+    private final City[] cities;
+
+    private CityPrefixIndex(List<Entry> entries) {
+        normalizedNames = new String[entries.size()];
+        cities = new City[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            normalizedNames[i] = entries.get(i).normalizedName();
+            cities[i] = entries.get(i).city();
+        }
+    }
+
+    /**
+     * Builds the index from a collection of cities. Cities whose name has no letters are left out, since no prefix
+     * finds them
+     * @param cities cities to index
+     * @return CityPrefixIndex containing the cities
+     */
+    public static CityPrefixIndex of(Collection<City> cities) {
+        List<Entry> entries = new ArrayList<>(cities.size());
+        for (City city : cities) {
+            String normalizedName = NameNormalizer.normalize(city.getName());
+            if (!normalizedName.isEmpty()) {
+                entries.add(new Entry(normalizedName, city));
+            }
+        }
+        entries.sort(ORDER);
+        return new CityPrefixIndex(entries);
+    }
+
+    /**
+     * Finds the cities whose normalized name starts with the prefix
+     * @param normalizedPrefix prefix normalized with NameNormalizer
+     * @param limit maximum number of cities returned
+     * @return List of City in the order of their normalized names
+     */
+    public List<City> findCities(String normalizedPrefix, int limit) {
+        List<City> result = new ArrayList<>();
+        for (int i = firstNotBefore(normalizedPrefix); i < normalizedNames.length && result.size() < limit
+                && normalizedNames[i].startsWith(normalizedPrefix); i++) {
+            result.add(cities[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of cities in the index
+     */
+    public int size() {
+        return cities.length;
+    }
+
+    /**
+     * Binary search of the first normalized name that is not before the prefix. If any name starts with the prefix,
+     * it is that one
+     */
+    private int firstNotBefore(String normalizedPrefix) {
+        int low = 0;
+        int high = normalizedNames.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (normalizedNames[middle].compareTo(normalizedPrefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private record Entry(String normalizedName, City city) {
+    }
+
+}
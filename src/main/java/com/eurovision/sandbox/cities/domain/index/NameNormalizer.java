@@ -0,0 +1,64 @@
+package com.eurovision.sandbox.cities.domain.index;
+
+import java.text.Normalizer;
+
+/**
+ * Normalizes city names and dictionary words before they are matched, so only their letters count: accents and other
+ * diacritics are stripped, case is folded and spaces, hyphens, apostrophes and any other character that is not a
+ * letter are removed. "São Paulo" becomes "saopaulo" and "Aix-en-Provence" becomes "aixenprovence"
+ */
+public final class NameNormalizer {
+
+    private NameNormalizer() {
+    }
+
+    /**
+     * Normalizes a name
+     * @param name city name or dictionary word
+     * @return the letters of the name in lower case and without diacritics
+     */
+    public static String normalize(String name) {
+        if (isAscii(name)) {
+            //Nothing to decompose: keep the letters and fold their case
+            StringBuilder normalized = new StringBuilder(name.length());
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c >= 'a' && c <= 'z') {
+                    normalized.append(c);
+                } else if (c >= 'A' && c <= 'Z') {
+                    normalized.append((char) (c + ('a' - 'A')));
+                }
+            }
+            return normalized.toString();
+        }
+
+        //Compatibility decomposition splits accented letters and ligatures, leaving diacritics as separate marks
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        decomposed.codePoints()
+                .filter(Character::isLetter)
+                //Folded the same way String.equalsIgnoreCase compares characters
+                .map(c -> Character.toLowerCase(Character.toUpperCase(c)))
+                .forEach(normalized::appendCodePoint);
+        return normalized.toString();
+    }
+
+    /**
+     * Counts the letters of a normalized name
+     * @param normalizedName name returned by normalize
+     * @return number of letters
+     */
+    public static int length(String normalizedName) {
+        return normalizedName.codePointCount(0, normalizedName.length());
+    }
+
+    private static boolean isAscii(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
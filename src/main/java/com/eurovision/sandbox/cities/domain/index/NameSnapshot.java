@@ -0,0 +1,312 @@
+package com.eurovision.sandbox.cities.domain.index;
+
+import com.eurovision.sandbox.cities.domain.model.City;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Names of cities or dictionary words grouped by their number of letters, stored in a binary file that is mapped in
+ * memory instead of read. Only the pages of the lengths that are read are loaded from disk, and the file stays in the
+ * page cache of the operating system rather than in the heap.
+ * <p>
+ * The file starts with a header holding a magic number, the format version, the data version the names were read at
+ * and a CRC32 of everything after the header followed by the header fields after the format version, so a file that is
+ * truncated, corrupted or written by another version is rejected when it is mapped. Rows follow sorted by length, each
+ * one with the id of the city if the file has ids and its name in UTF-8, and the file ends with the position of the
+ * first row of every length
+ */
+public class NameSnapshot {
+
+    private static final int MAGIC = 0x45564E53;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 40;
+    //Header fields covered by the checksum are those from the data version up to the checksum
+    private static final int CHECKED_HEADER_START = 8;
+    private static final int CRC_POSITION = 36;
+    private static final int WITH_IDS = 1;
+    private static final int MAX_NAME_BYTES = 0xFFFF;
+
+    private final ByteBuffer buffer;
+    private final long dataVersion;
+    private final long modifiedAt;
+    private final boolean withIds;
+    private final int size;
+    private final int maxLength;
+
+    //Rows of length l are those in [rowsByLength[l], rowsByLength[l + 1]), as positions in the buffer
+    private final int[] rowsByLength;
+
+    private NameSnapshot(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a name snapshot");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException(String.format("Unsupported snapshot format %d", buffer.getInt(4)));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+        crc.update(buffer.slice(CHECKED_HEADER_START, CRC_POSITION - CHECKED_HEADER_START));
+        if ((int) crc.getValue() != buffer.getInt(CRC_POSITION)) {
+            throw new IOException("Snapshot checksum does not match its content");
+        }
+        this.buffer = buffer;
+        this.dataVersion = buffer.getLong(8);
+        this.modifiedAt = buffer.getLong(16);
+        this.withIds = (buffer.getInt(24) & WITH_IDS) != 0;
+        this.size = buffer.getInt(28);
+        this.maxLength = buffer.getInt(32);
+        //A matching checksum does not make the header consistent, so positions are checked before they are read
+        if (size < 0 || maxLength < 0
+                || (maxLength + 2L) * Integer.BYTES > buffer.capacity() - HEADER_SIZE) {
+            throw new IOException(String.format("Snapshot of %d rows up to length %d does not fit in %d bytes",
+                    size, maxLength, buffer.capacity()));
+        }
+        this.rowsByLength = new int[maxLength + 2];
+        int offsets = buffer.capacity() - rowsByLength.length * Integer.BYTES;
+        int previous = HEADER_SIZE;
+        for (int length = 0; length < rowsByLength.length; length++) {
+            int firstRow = buffer.getInt(offsets + length * Integer.BYTES);
+            if (firstRow < previous || firstRow > offsets) {
+                throw new IOException(String.format("Snapshot rows of length %d start at %d, out of [%d, %d]",
+                        length, firstRow, previous, offsets));
+            }
+            rowsByLength[length] = firstRow;
+            previous = firstRow;
+        }
+    }
+
+    /**
+     * Maps a snapshot file in memory, read only, and validates it. The mapping stays valid after the file is replaced
+     * @param path file written by writeCities or writeNames
+     * @return NameSnapshot reading the mapped file
+     * @throws IOException if the file can't be read, or is not a valid snapshot
+     */
+    public static NameSnapshot map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too big to be mapped");
+            }
+            return new NameSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the cities to a snapshot file with their ids. The file is written aside and then moved over the previous
+     * one, so a snapshot being read is never seen half written
+     * @param path snapshot file
+     * @param dataVersion version of the cities the snapshot was read at
+     * @param modifiedAt epoch milliseconds of the version
+     * @param citiesByLength cities by the number of letters of their normalized name
+     * @throws IOException if the file can't be written
+     */
+    public static void writeCities(Path path, long dataVersion, long modifiedAt,
+                                   SortedMap<Integer, List<City>> citiesByLength) throws IOException {
+        write(path, dataVersion, modifiedAt, true, citiesByLength, (out, city) -> {
+            out.writeLong(city.getId());
+            writeName(out, city.getName());
+        });
+    }
+
+    /**
+     * Writes names without ids to a snapshot file. The file is written aside and then moved over the previous one, so
+     * a snapshot being read is never seen half written
+     * @param path snapshot file
+     * @param dataVersion version of the names the snapshot was read at
+     * @param modifiedAt epoch milliseconds of the version
+     * @param namesByLength names by their number of letters once normalized
+     * @throws IOException if the file can't be written
+     */
+    public static void writeNames(Path path, long dataVersion, long modifiedAt,
+                                  SortedMap<Integer, List<String>> namesByLength) throws IOException {
+        write(path, dataVersion, modifiedAt, false, namesByLength, NameSnapshot::writeName);
+    }
+
+    /**
+     * Reads the cities of every length in the range
+     * @param minLength minimum number of letters of the normalized name
+     * @param maxLength maximum number of letters of the normalized name
+     * @return List of City, shortest first and in the order they were written for each length
+     */
+    public List<City> findCities(int minLength, int maxLength) {
+        if (!withIds) {
+            throw new IllegalStateException("Snapshot has no ids");
+        }
+        List<City> cities = new ArrayList<>();
+        int position = firstRow(minLength);
+        int end = firstRow(maxLength + 1L);
+        while (position < end) {
+            long id = buffer.getLong(position);
+            String name = readName(position + Long.BYTES);
+            cities.add(new City(id, name));
+            position += Long.BYTES + Short.BYTES + (buffer.getShort(position + Long.BYTES) & MAX_NAME_BYTES);
+        }
+        return cities;
+    }
+
+    /**
+     * Reads the names of every length in the range, without their ids
+     * @param minLength minimum number of letters of the normalized name
+     * @param maxLength maximum number of letters of the normalized name
+     * @return List of names, shortest first and in the order they were written for each length
+     */
+    public List<String> findNames(int minLength, int maxLength) {
+        int idBytes = withIds ? Long.BYTES : 0;
+        List<String> names = new ArrayList<>();
+        int position = firstRow(minLength);
+        int end = firstRow(maxLength + 1L);
+        while (position < end) {
+            names.add(readName(position + idBytes));
+            position += idBytes + Short.BYTES + (buffer.getShort(position + idBytes) & MAX_NAME_BYTES);
+        }
+        return names;
+    }
+
+    /**
+     * @return version of the data the snapshot was read at
+     */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * @return epoch milliseconds of the data version
+     */
+    public long getModifiedAt() {
+        return modifiedAt;
+    }
+
+    /**
+     * @return greatest number of letters of the names
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    private int firstRow(long length) {
+        return rowsByLength[(int) Math.max(0, Math.min(length, rowsByLength.length - 1))];
+    }
+
+    private String readName(int position) {
+        byte[] name = new byte[buffer.getShort(position) & MAX_NAME_BYTES];
+        buffer.get(position + Short.BYTES, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private static <T> void write(Path path, long dataVersion, long modifiedAt, boolean withIds,
+                                  SortedMap<Integer, List<T>> rowsByLength, RowWriter<T> rowWriter)
+            throws IOException {
+        int maxLength = rowsByLength.isEmpty() ? 0 : rowsByLength.lastKey();
+        int[] firstRows = new int[maxLength + 2];
+        int size = 0;
+        CRC32 crc = new CRC32();
+        Path written = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(written, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CountingOutputStream counting = new CountingOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel.position(HEADER_SIZE)),
+                            1 << 16), crc), HEADER_SIZE);
+            DataOutputStream out = new DataOutputStream(counting);
+            for (int length = 0; length <= maxLength; length++) {
+                firstRows[length] = counting.position();
+                for (T row : rowsByLength.getOrDefault(length, List.of())) {
+                    rowWriter.write(out, row);
+                    size++;
+                }
+            }
+            firstRows[maxLength + 1] = counting.position();
+            for (int firstRow : firstRows) {
+                out.writeInt(firstRow);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(dataVersion)
+                    .putLong(modifiedAt)
+                    .putInt(withIds ? WITH_IDS : 0)
+                    .putInt(size)
+                    .putInt(maxLength);
+            crc.update(header.array(), CHECKED_HEADER_START, CRC_POSITION - CHECKED_HEADER_START);
+            header.putInt((int) crc.getValue()).flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(written, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeName(DataOutputStream out, String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IOException(String.format("Name of %d bytes is too long for a snapshot", bytes.length));
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    @FunctionalInterface
+    private interface RowWriter<T> {
+
+        void write(DataOutputStream out, T row) throws IOException;
+
+    }
+
+    /**
+     * Keeps the position in the file of the bytes written, which must fit in the int positions of the file
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long position;
+
+        CountingOutputStream(OutputStream out, long position) {
+            super(out);
+            this.position = position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+
+        int position() throws IOException {
+            if (position > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too big to be mapped");
+            }
+            return (int) position;
+        }
+
+    }
+
+}
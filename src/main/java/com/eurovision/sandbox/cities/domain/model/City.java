@@ -1,10 +1,13 @@
 package com.eurovision.sandbox.cities.domain.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+//Public constructor used by the repository queries projecting straight into this class
+@AllArgsConstructor
 public class City {
 
     private long id;
@@ -0,0 +1,16 @@
+package com.eurovision.sandbox.cities.domain.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CityPermutations {
+
+    private City city;
+    //words in the dictionary that can be built with the letters of the city name
+    private List<String> words;
+
+}
@@ -0,0 +1,15 @@
+package com.eurovision.sandbox.cities.domain.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class DataVersion {
+
+    //weak entity tag, since the same data can be sent in different formats and encodings
+    private String eTag;
+    //epoch milliseconds of the last change, or -1 if the data has not changed since counting started
+    private long lastModified;
+
+}
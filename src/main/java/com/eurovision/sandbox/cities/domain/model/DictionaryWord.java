@@ -0,0 +1,17 @@
+package com.eurovision.sandbox.cities.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+//Public constructor used by the repository queries projecting straight into this class
+@AllArgsConstructor
+public class DictionaryWord {
+
+    private String name;
+    //letters of the normalized word
+    private Integer nameLength;
+
+}
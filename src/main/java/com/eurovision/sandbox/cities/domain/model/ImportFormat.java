@@ -0,0 +1,13 @@
+package com.eurovision.sandbox.cities.domain.model;
+
+/**
+ * Formats of the rows sent to the bulk import endpoints
+ */
+public enum ImportFormat {
+
+    //id,name per line, with an optional id,name header. Names with commas or quotes are quoted, doubling the quotes
+    CSV,
+    //{"id":1,"name":"..."} per line
+    NDJSON
+
+}
@@ -0,0 +1,18 @@
+package com.eurovision.sandbox.cities.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportedRow {
+
+    //id of the city or word, replacing the row with the same id if there is one
+    private Integer id;
+    private String name;
+
+}
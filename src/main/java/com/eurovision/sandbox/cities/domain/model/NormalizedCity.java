@@ -0,0 +1,14 @@
+package com.eurovision.sandbox.cities.domain.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class NormalizedCity {
+
+    private City city;
+    //letters of the city name, normalized the same way as the dictionary words
+    private String normalizedName;
+
+}
@@ -0,0 +1,15 @@
+package com.eurovision.sandbox.cities.domain.model;
+
+public enum PermutationJobStatus {
+
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.CityCountService;
+import com.eurovision.sandbox.cities.domain.component.DataVersionService;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@Log4j2
+public class CityCountServiceImpl implements CityCountService {
+
+    private final CitiesRepository citiesRepository;
+    private final long timeToLiveNanos;
+    private final boolean estimated;
+
+    private final Timer countTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    //Replaced by a new empty count on every invalidation, so a count that started before it is never stored
+    private final AtomicReference<CachedCount> cachedCount = new AtomicReference<>(CachedCount.empty());
+
+    public CityCountServiceImpl(CitiesRepository citiesRepository, MeterRegistry meterRegistry,
+                                @Value("${cities.count.time-to-live:30s}") Duration timeToLive,
+                                @Value("${cities.count.estimated:false}") boolean estimated) {
+        this.citiesRepository = citiesRepository;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.estimated = estimated;
+        this.countTimer = meterRegistry.timer("cities.count", "mode", estimated ? "estimated" : "exact");
+        this.cacheHits = meterRegistry.counter("cities.cache.gets", "cache", "cityCount", "result", "hit");
+        this.cacheMisses = meterRegistry.counter("cities.cache.gets", "cache", "cityCount", "result", "miss");
+    }
+
+    @Override
+    public long countCities() {
+        CachedCount current = cachedCount.get();
+        long now = System.nanoTime();
+        if (current.counted && now - current.countedAt < timeToLiveNanos) {
+            cacheHits.increment();
+            return current.value;
+        }
+        cacheMisses.increment();
+
+        long value = countTimer.record(this::count);
+        //A concurrent invalidation replaced the cached count, so a count that started before it is not stored
+        cachedCount.compareAndSet(current, new CachedCount(value, now, true));
+        return value;
+    }
+
+    private long count() {
+        if (estimated) {
+            log.info("Reading estimated number of cities from table statistics");
+            Long estimation = citiesRepository.estimateCount();
+            return estimation == null ? citiesRepository.count() : estimation;
+        }
+        log.info("Counting cities in database");
+        return citiesRepository.count();
+    }
+
+    @Override
+    public void invalidate() {
+        cachedCount.set(CachedCount.empty());
+    }
+
+    /**
+     * Discards the cached total once a transaction that changed cities commits
+     * @param event CitiesChangedEvent with the ids of the inserted, updated or deleted cities
+     */
+    @TransactionalEventListener
+    @Order(DataVersionService.REFRESH_ORDER)
+    public void onCitiesChanged(CitiesChangedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Total of cities and when it was counted. Compared by identity, so every empty count is a different one
+     */
+    private static final class CachedCount {
+
+        private final long value;
+        private final long countedAt;
+        private final boolean counted;
+
+        private CachedCount(long value, long countedAt, boolean counted) {
+            this.value = value;
+            this.countedAt = countedAt;
+            this.counted = counted;
+        }
+
+        private static CachedCount empty() {
+            return new CachedCount(0, 0, false);
+        }
+
+    }
+
+}
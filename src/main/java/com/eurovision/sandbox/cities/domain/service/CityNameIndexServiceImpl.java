@@ -0,0 +1,90 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.CityNameIndexService;
+import com.eurovision.sandbox.cities.domain.component.DataVersionService;
+import com.eurovision.sandbox.cities.domain.component.NameSnapshotService;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.index.NameNormalizer;
+import com.eurovision.sandbox.cities.domain.index.NameSnapshot;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.NormalizedCity;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class CityNameIndexServiceImpl implements CityNameIndexService {
+
+    private final CitiesRepository citiesRepository;
+    private final NameSnapshotService nameSnapshotService;
+    private final MeterRegistry meterRegistry;
+
+    //Replaced by an empty map when cities change, so names loaded before are never read again
+    private final AtomicReference<Map<Integer, List<NormalizedCity>>> loadedNames = new AtomicReference<>(
+            new ConcurrentHashMap<>());
+
+    @Override
+    public List<NormalizedCity> findCitiesWithLength(int length) {
+        Map<Integer, List<NormalizedCity>> current = loadedNames.get();
+        List<NormalizedCity> cities = current.get(length);
+        if (cities == null) {
+            meterRegistry.counter("cities.cache.gets", "cache", "cityNames", "result", "miss").increment();
+            return meterRegistry.timer("cities.names.load").record(() -> load(current, length));
+        }
+        meterRegistry.counter("cities.cache.gets", "cache", "cityNames", "result", "hit").increment();
+        return cities;
+    }
+
+    @Override
+    public void invalidate() {
+        loadedNames.set(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Discards the loaded names once a transaction that changed cities commits
+     * @param event CitiesChangedEvent with the ids of the inserted, updated or deleted cities
+     */
+    @TransactionalEventListener
+    @Order(DataVersionService.REFRESH_ORDER)
+    public void onCitiesChanged(CitiesChangedEvent event) {
+        invalidate();
+    }
+
+    private List<NormalizedCity> load(Map<Integer, List<NormalizedCity>> current, int length) {
+        Optional<NameSnapshot> citiesSnapshot = nameSnapshotService.findCitiesSnapshot();
+        log.info("Loading and normalizing names of cities with {} letters from {}", length,
+                citiesSnapshot.isPresent() ? "snapshot" : "database");
+        //Only the cities with this length are read, from their part of the snapshot or with a range scan of the name
+        //length index
+        List<City> cities = citiesSnapshot.isPresent() ? citiesSnapshot.get().findCities(length, length)
+                : citiesRepository.findCitiesWithLengthBetween(length, length);
+        List<NormalizedCity> loaded = cities.stream()
+                .map(this::normalize)
+                .collect(Collectors.toUnmodifiableList());
+        log.info("Normalized {} city names", loaded.size());
+        //Names loaded before a concurrent invalidation go to the discarded map
+        current.putIfAbsent(length, loaded);
+        return loaded;
+    }
+
+    private NormalizedCity normalize(City city) {
+        return NormalizedCity.builder()
+                .city(city)
+                .normalizedName(NameNormalizer.normalize(city.getName()))
+                .build();
+    }
+
+}
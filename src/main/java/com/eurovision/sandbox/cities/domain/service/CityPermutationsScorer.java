@@ -0,0 +1,183 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.ScoringProgress;
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
+import com.eurovision.sandbox.cities.domain.model.CityPermutations;
+import com.eurovision.sandbox.cities.domain.model.NormalizedCity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the words in the dictionary that can be built with the letters of each city name. Cities are scored
+ * independently in the permutations pool
+ */
+@Component
+@Log4j2
+public class CityPermutationsScorer {
+
+    private final ForkJoinPool permutationsPool;
+    //Registered once, since it is recorded for every scored city
+    private final Timer cityTimer;
+
+    public CityPermutationsScorer(ForkJoinPool permutationsPool, MeterRegistry meterRegistry) {
+        this.permutationsPool = permutationsPool;
+        this.cityTimer = meterRegistry.timer("cities.permutations.city");
+    }
+
+    /**
+     * Scores every city in the list in parallel
+     * @param cities List of all cities to check
+     * @param dictionary index of the words in the dictionary
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @return List of CityPermutations in the same order as the cities
+     */
+    public List<CityPermutations> scoreCities(List<NormalizedCity> cities, AnagramIndex dictionary, int minWord,
+                                              int maxWord) {
+        log.info("scoring {} city names", cities.size());
+        return permutationsPool.submit(() -> cities.parallelStream()
+                .map(c -> scoreCity(c, dictionary, minWord, maxWord))
+                .collect(Collectors.toList())
+        ).join();
+    }
+
+    /**
+     * Finds the city with most words. The first city in the list with most words wins, as it would when checking
+     * them one by one
+     * @param cities List of all cities to check
+     * @param dictionary index of the words in the dictionary
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @return CityPermutations with the city with most words, or empty if no word can be built from any city
+     */
+    public Optional<CityPermutations> findMostPermutableCity(List<NormalizedCity> cities, AnagramIndex dictionary,
+                                                             int minWord, int maxWord) {
+        return findMostPermutableCity(cities, dictionary, minWord, maxWord, ScoringProgress.NONE);
+    }
+
+    /**
+     * Finds the city with most words, reporting every scored city. The first city in the list with most words wins,
+     * as it would when checking them one by one
+     * @param cities List of all cities to check
+     * @param dictionary index of the words in the dictionary
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param progress ScoringProgress notified of the number of cities and of each scored city
+     * @return CityPermutations with the city with most words, or empty if no word can be built from any city
+     */
+    public Optional<CityPermutations> findMostPermutableCity(List<NormalizedCity> cities, AnagramIndex dictionary,
+                                                             int minWord, int maxWord, ScoringProgress progress) {
+        return findMostPermutableCities(cities, dictionary, minWord, maxWord, 1, progress).stream().findFirst();
+    }
+
+    /**
+     * Finds the cities with most words in one pass. Each thread keeps only its best cities in a bounded heap, and
+     * the heaps are merged at the end, so the words of the other cities are discarded as soon as they are scored.
+     * Cities with as many words keep their order in the list, as they would when checking them one by one
+     * @param cities List of all cities to check
+     * @param dictionary index of the words in the dictionary
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param count Maximum number of cities returned
+     * @param progress ScoringProgress notified of the number of cities and of each scored city
+     * @return List of CityPermutations with most words first. Cities from which no word can be built are left out
+     */
+    public List<CityPermutations> findMostPermutableCities(List<NormalizedCity> cities, AnagramIndex dictionary,
+                                                           int minWord, int maxWord, int count,
+                                                           ScoringProgress progress) {
+        log.info("checking {} city names", cities.size());
+        progress.started(cities.size());
+        return permutationsPool.submit(() -> IntStream.range(0, cities.size()).parallel()
+                .mapToObj(i -> {
+                    RankedCity rankedCity = new RankedCity(i, scoreCity(cities.get(i), dictionary, minWord, maxWord));
+                    progress.cityScored();
+                    return rankedCity;
+                })
+                .filter(rankedCity -> !rankedCity.permutations().getWords().isEmpty())
+                .collect(Collector.of(() -> new CityRanking(count), CityRanking::add, CityRanking::merge,
+                        CityRanking::toList))
+        ).join();
+    }
+
+    /**
+     * Finds all words with a length in the range that can be built with the letters of the normalized city name.
+     * It runs once per city, so it only logs at debug level, and nothing is allocated for it while debug is off
+     * @param city NormalizedCity with the city and its normalized name
+     * @param dictionary index of the words in the dictionary
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @return CityPermutations with the city and its words, shortest first
+     */
+    public CityPermutations scoreCity(NormalizedCity city, AnagramIndex dictionary, int minWord, int maxWord) {
+        long start = System.nanoTime();
+        List<String> words = dictionary.findWords(city.getNormalizedName(), minWord, maxWord);
+        cityTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        //Guarded, since the lengths would be boxed even when the message is discarded
+        if (log.isDebugEnabled()) {
+            log.debug("found {} words of {} to {} letters in city {}", words.size(), minWord, maxWord,
+                    city.getCity().getName());
+        }
+        return CityPermutations.builder()
+                .city(city.getCity())
+                .words(words)
+                .build();
+    }
+
+    /**
+     * Scored city with its position in the list of cities, which breaks ties
+     */
+    private record RankedCity(int position, CityPermutations permutations) {
+    }
+
+    /**
+     * Best cities seen so far, kept in a min-heap whose head is the worst of them
+     */
+    private static class CityRanking {
+
+        //Most words first, then first in the list of cities
+        private static final Comparator<RankedCity> BEST_FIRST = Comparator
+                .comparingInt((RankedCity rankedCity) -> rankedCity.permutations().getWords().size()).reversed()
+                .thenComparingInt(RankedCity::position);
+
+        private final int count;
+        private final PriorityQueue<RankedCity> heap;
+
+        private CityRanking(int count) {
+            this.count = count;
+            this.heap = new PriorityQueue<>(count + 1, BEST_FIRST.reversed());
+        }
+
+        private void add(RankedCity rankedCity) {
+            heap.offer(rankedCity);
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        }
+
+        private CityRanking merge(CityRanking other) {
+            other.heap.forEach(this::add);
+            return this;
+        }
+
+        private List<CityPermutations> toList() {
+            return heap.stream()
+                    .sorted(BEST_FIRST)
+                    .map(RankedCity::permutations)
+                    .collect(Collectors.toList());
+        }
+
+    }
+
+}
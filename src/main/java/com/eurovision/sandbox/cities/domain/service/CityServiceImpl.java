@@ -1,35 +1,66 @@
 package com.eurovision.sandbox.cities.domain.service;
 
+import com.eurovision.sandbox.cities.domain.component.CityCountService;
+import com.eurovision.sandbox.cities.domain.component.CityNameIndexService;
 import com.eurovision.sandbox.cities.domain.component.CityService;
+import com.eurovision.sandbox.cities.domain.component.DataVersionService;
+import com.eurovision.sandbox.cities.domain.component.DictionaryService;
+import com.eurovision.sandbox.cities.domain.component.PermutationScoreService;
+import com.eurovision.sandbox.cities.domain.component.ScoringProgress;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
 import com.eurovision.sandbox.cities.domain.exception.BadRequestException;
 import com.eurovision.sandbox.cities.domain.exception.DataProcessingException;
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
 import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.CityPermutations;
+import com.eurovision.sandbox.cities.domain.model.NormalizedCity;
+import com.eurovision.sandbox.cities.dto.CursorPaginatedResponseDto;
 import com.eurovision.sandbox.cities.dto.PaginatedResponseDto;
 import com.eurovision.sandbox.cities.dto.PermutableCityResponseDto;
-import com.eurovision.sandbox.cities.infrastructure.db.entity.CityEntity;
 import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
-import com.eurovision.sandbox.cities.infrastructure.db.repository.WordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.annotation.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Log4j2
 public class CityServiceImpl implements CityService {
 
+    public static final String CITY_PAGES_CACHE = "cityPages";
+
+    public static final int MAX_RANKING_SIZE = 100;
+
+    private static final String CURSOR_SEPARATOR = ":";
+
     private final CitiesRepository citiesRepository;
-    private final WordRepository wordRepository;
+    private final CityCountService cityCountService;
+    private final CityNameIndexService cityNameIndexService;
+    private final DictionaryService dictionaryService;
+    private final PermutationScoreService permutationScoreService;
+    private final CityPermutationsScorer cityPermutationsScorer;
+    private final MeterRegistry meterRegistry;
 
     @Override
+    @Transactional(readOnly = true)
     public PaginatedResponseDto findCitiesWithParams(int page, int size) {
 
         validatePageAndSize(page, size);
@@ -37,16 +68,20 @@ public class CityServiceImpl implements CityService {
         final Pageable pageRequest = PageRequest.of(page - 1, size);
 
         log.info("Fetching all cities from database");
-        Page<CityEntity> cityRepositoryResponse = citiesRepository.findAll(pageRequest);
-
-        log.info("Mapping entities to domain models");
-        List<City> cities = cityRepositoryResponse.stream().map(this::mapToDto).collect(Collectors.toList());
+        Page<City> cityRepositoryResponse = meterRegistry.timer("cities.page.fetch", "query", "page")
+                .record(() -> citiesRepository.findCityPage(pageRequest));
+        List<City> cities = cityRepositoryResponse.getContent();
 
-        log.info(String.format("Mapped %d results. Building response", cities.size()));
-        return buildResponse(cities, page, size, cityRepositoryResponse);
+        log.info("Fetched {} results. Building response", cities.size());
+        return buildResponse(cities, page, size, cityRepositoryResponse.getTotalElements());
     }
 
+    //Pages are cached by the version of the cities they were read at. A page read before a change commits but cached
+    //after the eviction keeps the old version in its key, so it is never served once the new version is read
     @Override
+    @Cacheable(cacheNames = CITY_PAGES_CACHE,
+            key = "{@dataVersionServiceImpl.findCitiesVersion().getETag(), #page, #size}")
+    @Transactional(readOnly = true)
     public PaginatedResponseDto findCitiesInAlphabeticalOrderAscendant(int page, int size) {
 
         validatePageAndSize(page, size);
@@ -54,26 +89,158 @@ public class CityServiceImpl implements CityService {
         final Pageable pageRequest = PageRequest.of(page - 1, size);
 
         log.info("Fetching all cities from database");
-        Page<CityEntity> cityRepositoryResponse = citiesRepository.findAllByOrderByNameAsc(pageRequest);
+        Slice<City> cityRepositoryResponse = meterRegistry.timer("cities.page.fetch", "query", "slice")
+                .record(() -> citiesRepository.findCitySliceOrderedByName(pageRequest));
+        List<City> cities = cityRepositoryResponse.getContent();
+
+        log.info("Fetched {} results. Building response", cities.size());
+        return buildResponse(cities, page, size, countCities(cityRepositoryResponse));
+
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPaginatedResponseDto findCitiesInAlphabeticalOrderAfter(String cursor, int size, boolean withTotal) {
+
+        validateSize(size);
+
+        //One more city than requested is fetched to know whether there is a following page, without counting
+        final Pageable limit = PageRequest.of(0, size + 1);
+
+        log.info("Fetching cities after cursor from database");
+        List<City> cityRepositoryResponse;
+        if (cursor == null || cursor.isEmpty()) {
+            cityRepositoryResponse = meterRegistry.timer("cities.page.fetch", "query", "cursor")
+                    .record(() -> citiesRepository.findFirstCitiesOrderedByNameAndId(limit));
+        } else {
+            City lastCity = decodeCursor(cursor);
+            cityRepositoryResponse = meterRegistry.timer("cities.page.fetch", "query", "cursor")
+                    .record(() -> citiesRepository.findCitiesOrderedByNameAndIdAfter(lastCity.getName(),
+                            (int) lastCity.getId(), limit));
+        }
 
-        log.info("Mapping entities to domain models");
-        List<City> cities = cityRepositoryResponse.stream().map(this::mapToDto).collect(Collectors.toList());
+        boolean last = cityRepositoryResponse.size() <= size;
+        List<City> cities = last ? cityRepositoryResponse : cityRepositoryResponse.subList(0, size);
 
-        log.info(String.format("Mapped %d results. Building response", cities.size()));
-        return buildResponse(cities, page, size, cityRepositoryResponse);
+        log.info("Fetched {} results. Building response", cities.size());
+        return CursorPaginatedResponseDto.builder()
+                .content(cities)
+                .last(last)
+                .size(size)
+                .next(last ? null : encodeCursor(cities.get(cities.size() - 1)))
+                .totalElements(withTotal ? cityCountService.countCities() : null)
+                .build();
+
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCityInAlphabeticalOrder(Consumer<City> consumer) {
+
+        log.info("Streaming all cities from database");
+        //Cities are projections, not entities, so the persistence context does not grow with the table
+        meterRegistry.timer("cities.page.fetch", "query", "stream").record(() -> {
+            try (Stream<City> cities = citiesRepository.streamAllOrderedByNameAndId()) {
+                cities.forEach(consumer);
+            }
+        });
 
     }
 
     @Override
     public PermutableCityResponseDto findMostPermutableCity() {
-        List<CityEntity> citiesWithSevenLetters = citiesRepository.findCitiesWithSevenLetters();
-        List<String> possibleWordsFromPermutations = new ArrayList<>();
-        City mostPermutableCity = getCityWithMostPermutations(citiesWithSevenLetters, possibleWordsFromPermutations);
+        //Read the precomputed scores when they are available, instead of scoring every city again
+        Optional<CityPermutations> storedMostPermutableCity = permutationScoreService.findMostPermutableCity();
+        if (storedMostPermutableCity.isPresent()) {
+            return buildMostPermutableCityResponse(storedMostPermutableCity.get());
+        }
+
+        log.info("Permutation scores are not available. Scoring all cities");
+        CityPermutations mostPermutableCity = getCityWithMostPermutations(PermutationScoreService.MIN_WORD,
+                PermutationScoreService.MAX_WORD, PermutationScoreService.CITY_LENGTH, ScoringProgress.NONE);
+
+        return buildMostPermutableCityResponse(mostPermutableCity);
 
-        return buildMostPermutableCityResponse(mostPermutableCity, possibleWordsFromPermutations);
+    }
+
+    @Override
+    public PermutableCityResponseDto findMostPermutableCity(int minWord, int maxWord, int cityLength) {
+        return findMostPermutableCity(minWord, maxWord, cityLength, ScoringProgress.NONE);
+    }
+
+    @Override
+    public PermutableCityResponseDto findMostPermutableCity(int minWord, int maxWord, int cityLength,
+                                                            ScoringProgress progress) {
+
+        validateWordAndCityLengths(minWord, maxWord, cityLength);
+
+        CityPermutations mostPermutableCity = getCityWithMostPermutations(minWord, maxWord, cityLength, progress);
+
+        return buildMostPermutableCityResponse(mostPermutableCity);
+
+    }
+
+    @Override
+    public List<PermutableCityResponseDto> findMostPermutableCities(int minWord, int maxWord, int cityLength,
+                                                                    int count) {
+
+        validateWordAndCityLengths(minWord, maxWord, cityLength);
+        validateRankingSize(count);
+
+        List<CityPermutations> mostPermutableCities = List.of();
+        if (minWord == PermutationScoreService.MIN_WORD && maxWord == PermutationScoreService.MAX_WORD
+                && cityLength == PermutationScoreService.CITY_LENGTH) {
+            //Read the precomputed scores when they are available, instead of scoring every city again
+            mostPermutableCities = permutationScoreService.findMostPermutableCities(count);
+        }
+        if (mostPermutableCities.isEmpty()) {
+            mostPermutableCities = getCitiesWithMostPermutations(minWord, maxWord, cityLength, count,
+                    ScoringProgress.NONE);
+        }
+
+        return mostPermutableCities.stream()
+                .map(this::buildMostPermutableCityResponse)
+                .collect(Collectors.toList());
 
     }
 
+    @Override
+    public void validateWordAndCityLengths(int minWord, int maxWord, int cityLength) {
+
+        log.info("Validating word lengths: {} to {} and city length: {}", minWord, maxWord, cityLength);
+
+        if (minWord < 1) {
+            log.error("Word length validation failed: Minimum word length was less than 1");
+            throw BadRequestException.of("Minimum word length must be at least one",
+                    "Words must have at least one letter");
+        }
+
+        if (maxWord < minWord) {
+            log.error("Word length validation failed: Maximum word length was less than minimum word length");
+            throw BadRequestException.of("Maximum word length must not be less than minimum word length",
+                    "Word length range is empty");
+        }
+
+        if (cityLength < minWord) {
+            log.error("City length validation failed: City length was less than minimum word length");
+            throw BadRequestException.of("City length must not be less than minimum word length",
+                    "No word can be built from shorter city names");
+        }
+
+    }
+
+    /**
+     * Discards all cached pages once a transaction that changed cities commits, since any change can shift the
+     * alphabetical order of every page. Pages are keyed by data version, so this only frees them sooner
+     * @param event CitiesChangedEvent with the ids of the inserted, updated or deleted cities
+     */
+    @TransactionalEventListener
+    @Order(DataVersionService.REFRESH_ORDER)
+    @CacheEvict(cacheNames = CITY_PAGES_CACHE, allEntries = true)
+    public void onCitiesChanged(CitiesChangedEvent event) {
+        log.info("Evicting cached pages after {} cities changed", event.getCityIds().size());
+    }
+
     /**
      * Validates that page number and page size are not smaller than possible
      * @param page The page number requested in the pagination
@@ -81,13 +248,45 @@ public class CityServiceImpl implements CityService {
      */
     private void validatePageAndSize(int page, int size) {
 
-        log.info(String.format("Validating page number: %d and size: %d", page, size));
+        log.info("Validating page number: {} and size: {}", page, size);
 
         if (page < 1) {
             log.error("Page number validation failed: Page number was less than 1");
             throw BadRequestException.of("Page must be at least one", "Pagination should start at 1");
         }
 
+        validateSize(size);
+
+    }
+
+    /**
+     * Validates that the number of cities in a ranking is within bounds
+     * @param count The number of cities requested in the ranking
+     */
+    private void validateRankingSize(int count) {
+
+        log.info("Validating ranking size: {}", count);
+
+        if (count < 1) {
+            log.error("Ranking size validation failed: Size was less than 1");
+            throw BadRequestException.of("Ranking size must be greater than zero",
+                    "Ranking must show at least one city");
+        }
+
+        if (count > MAX_RANKING_SIZE) {
+            log.error("Ranking size validation failed: Size was greater than {}", MAX_RANKING_SIZE);
+            throw BadRequestException.of("Ranking size is too big",
+                    String.format("Ranking can show up to %d cities", MAX_RANKING_SIZE));
+        }
+
+    }
+
+    /**
+     * Validates that page size is not smaller than possible
+     * @param size The number of elements per page
+     */
+    private void validateSize(int size) {
+
         if (size < 1) {
             log.error("Page size validation failed: Size was less than 1");
             throw BadRequestException.of("Size must be greater than zero", "Query must show at least one element");
@@ -96,15 +295,52 @@ public class CityServiceImpl implements CityService {
     }
 
     /**
-     * Maps a database CityEntity to a domain model City object
-     * @param entity CityEntity from database
-     * @return City object from domain model
+     * Encodes the name and id of the last city of a page into an opaque cursor
+     * @param lastCity City shown last in the page
+     * @return URL safe token to request the following page
      */
-    private City mapToDto(CityEntity entity) {
-        return City.builder()
-                .id(entity.getId())
-                .name(entity.getName())
-                .build();
+    private String encodeCursor(City lastCity) {
+        String cursor = lastCity.getId() + CURSOR_SEPARATOR + lastCity.getName();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor created by encodeCursor
+     * @param cursor token returned as next by the previous page
+     * @return City with the name and id of the last city of the previous page
+     */
+    private City decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(CURSOR_SEPARATOR);
+            return City.builder()
+                    .id(Integer.parseInt(decoded.substring(0, separator)))
+                    .name(decoded.substring(separator + 1))
+                    .build();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            log.error("Cursor validation failed: {} is not a valid cursor", cursor);
+            throw BadRequestException.of("Invalid cursor", "Cursor must be the next token of a previous page");
+        }
+    }
+
+    /**
+     * Finds the total number of cities for a page fetched without counting. The cached total is only needed when
+     * there are more pages, and it is kept consistent with what the page shows
+     * @param slice page of cities from database
+     * @return total number of cities
+     */
+    private long countCities(Slice<City> slice) {
+        long offset = slice.getPageable().isPaged() ? slice.getPageable().getOffset() : 0;
+        long shown = offset + slice.getNumberOfElements();
+        if (!slice.hasContent()) {
+            //Requested page is past the last one, which can be no further than this offset
+            return Math.min(cityCountService.countCities(), offset);
+        }
+        if (!slice.hasNext()) {
+            //Last page: the total is known without counting
+            return shown;
+        }
+        return Math.max(cityCountService.countCities(), shown + 1);
     }
 
     /**
@@ -112,22 +348,20 @@ public class CityServiceImpl implements CityService {
      * @param cities List of City domain model objects
      * @param page Current page of the pagination
      * @param size Number of entries per page
-     * @param pageableResponse response from database to know how many entries and pages there are in total
+     * @param totalElements how many entries there are in total, to know how many pages there are
      * @return PaginatedResponseDto object that will be the body of the response entity
      */
-    private PaginatedResponseDto buildResponse(List<City> cities, int page, int size,
-                                               Page<CityEntity> pageableResponse) {
-        int totalPages = pageableResponse.getTotalPages();
+    private PaginatedResponseDto buildResponse(List<City> cities, int page, int size, long totalElements) {
+        int totalPages = (int) ((totalElements + size - 1) / size);
         log.info("Validating page number: Checking if requested page is grater than last page");
         if (page > totalPages) {
-            log.error(String. format("Validation failed: Requested page was %d, but last page is %d", page,
-                    totalPages));
+            log.error("Validation failed: Requested page was {}, but last page is {}", page, totalPages);
             throw BadRequestException.of("Not enough pages",
                     String.format("Query results can show up to %d pages", totalPages));
         }
         return PaginatedResponseDto.builder()
                 .content(cities)
-                .totalElements(pageableResponse.getTotalElements())
+                .totalElements(totalElements)
                 .totalPages(totalPages)
                 .last(totalPages <= page)
                 .size(size)
@@ -136,76 +370,61 @@ public class CityServiceImpl implements CityService {
     }
 
     /**
-     * This method is in charge of finding all possible permutations of each city in the list and comparing them to
-     * words in the dictionary to find all matches
-     * @param sevenLetterCities List of all cities with seven letters
-     * @param possibleWords List to which all word matches with permutations will be added
-     * @return City domain model object with most matches to words with permutations from its name
+     * This method is in charge of finding, for each city with the given number of letters, all the words in the
+     * dictionary that can be built with some of the letters of its name. Names and words are compared once
+     * normalized, so accents, spaces and hyphens are neither counted nor permuted
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param cityLength Number of letters of the normalized city names
+     * @param progress ScoringProgress notified of every scored city
+     * @return CityPermutations with the city with most matches to words with permutations from its name
      */
-    private City getCityWithMostPermutations(List<CityEntity> sevenLetterCities, List<String> possibleWords) {
-        log.info(String.format("checking %d city names", sevenLetterCities.size()));
-        //Using atomic reference to be able to manipulate it in lambda expression
-        AtomicReference<CityEntity> response = new AtomicReference<>();
-        List<String> fiveLetteredWords = wordRepository.findNumberedLetteredWords(5);
-        List<String> sixLetteredWords = wordRepository.findNumberedLetteredWords(6);
-        List<String> sevenLetteredWords = wordRepository.findNumberedLetteredWords(7);
-        sevenLetterCities.forEach( c -> {
-            List<String> tmpList = new ArrayList<>();
-            //Add all found five-lettered words from the permutations to a temporary list
-            log.info(String.format("finding permutations of %d elements for city %s", 5, c.getName()));
-            findPermutations(c.getName().trim(), 5, "", tmpList, fiveLetteredWords);
-            //Add all found six-lettered words from the permutations to the temporary list
-            log.info(String.format("finding permutations of %d elements for city %s", 6, c.getName()));
-            findPermutations(c.getName().trim(), 6, "", tmpList, sixLetteredWords);
-            //Add all found seven-lettered words from the permutations to the temporary list
-            log.info(String.format("finding permutations of %d elements for city %s", 7, c.getName()));
-            findPermutations(c.getName().trim(), 7, "", tmpList, sevenLetteredWords);
-            //Check if temporary list has more elements than previously saved list. If so, update with new list
-            if (tmpList.size() > possibleWords.size()) {
-                log.info(String.format("updating response to result with %d words", tmpList.size()));
-                possibleWords.clear();
-                possibleWords.addAll(tmpList);
-                response.set(c);
-            }
-
-        });
+    private CityPermutations getCityWithMostPermutations(int minWord, int maxWord, int cityLength,
+                                                         ScoringProgress progress) {
+        List<CityPermutations> response = getCitiesWithMostPermutations(minWord, maxWord, cityLength, 1, progress);
 
-        if (response.get() == null) {
+        if (response.isEmpty()) {
             throw DataProcessingException.of("An error occurred while calculating permutations and response was null");
         }
 
-        return mapToDto(response.get());
+        log.info("most permutable city is {} with {} words", response.get(0).getCity().getName(),
+                response.get(0).getWords().size());
+        return response.get(0);
+    }
+
+    /**
+     * Scores every city with the given number of letters, like getCityWithMostPermutations, and keeps the best ones
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param cityLength Number of letters of the normalized city names
+     * @param count Maximum number of cities returned
+     * @param progress ScoringProgress notified of every scored city
+     * @return List of CityPermutations with most matches first. Cities without any match are left out
+     */
+    private List<CityPermutations> getCitiesWithMostPermutations(int minWord, int maxWord, int cityLength, int count,
+                                                                 ScoringProgress progress) {
+        log.info("Fetching cities with {} letters", cityLength);
+        List<NormalizedCity> cities = cityNameIndexService.findCitiesWithLength(cityLength);
+        //Words longer than the city name can never be built from its letters
+        int maxWordLength = Math.min(maxWord, cityLength);
+        //The dictionary is indexed once so each city only needs a lookup per subset of its letters, and the index is
+        //reused by later searches until the words change
+        log.info("Fetching dictionary of words with {} to {} letters", minWord, maxWordLength);
+        AnagramIndex dictionary = dictionaryService.findDictionary(minWord, maxWordLength);
+        return meterRegistry.timer("cities.permutations.search").record(() ->
+                cityPermutationsScorer.findMostPermutableCities(cities, dictionary, minWord, maxWordLength, count,
+                        progress));
     }
 
     /**
      * Builds the response object for the response payload
-     * @param mostPermutableCity city with most permutable name
-     * @param possibleWords List of all words with matches to the city's permutations
+     * @param mostPermutableCity city with most permutable name and all words with matches to its permutations
      * @return PermutableCityResponseDto object that will be the body of the response entity
      */
-    private PermutableCityResponseDto buildMostPermutableCityResponse(City mostPermutableCity,
-                                                                      List<String> possibleWords) {
+    private PermutableCityResponseDto buildMostPermutableCityResponse(CityPermutations mostPermutableCity) {
         return PermutableCityResponseDto.builder()
-                .city(mostPermutableCity)
-                .wordsInDictionary(possibleWords)
+                .city(mostPermutableCity.getCity())
+                .wordsInDictionary(mostPermutableCity.getWords())
                 .build();
     }
-
-    private void findPermutations(String cityName, int numberOfElements, String prefix, List<String> result,
-                                  List<String> dictionary) {
-
-        if (prefix.length() == numberOfElements) {
-            if (dictionary.stream().anyMatch(prefix::equalsIgnoreCase)
-                    && result.stream().noneMatch(prefix::equalsIgnoreCase)) {
-                log.info(String.format("Found %s in the dictionary. Adding to the list", prefix.toLowerCase()));
-                result.add(prefix.toLowerCase());
-            }
-        } else {
-            for (int i = 0; i < cityName.length(); i++) {
-                findPermutations(cityName.substring(0,i)+cityName.substring(i+1),
-                        numberOfElements, prefix + cityName.charAt(i), result, dictionary);
-            }
-        }
-
-    }
 }
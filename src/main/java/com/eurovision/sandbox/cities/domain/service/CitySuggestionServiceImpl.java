@@ -0,0 +1,166 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.CitySuggestionService;
+import com.eurovision.sandbox.cities.domain.component.DataVersionService;
+import com.eurovision.sandbox.cities.domain.component.NameSnapshotService;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.exception.BadRequestException;
+import com.eurovision.sandbox.cities.domain.index.CityPrefixIndex;
+import com.eurovision.sandbox.cities.domain.index.NameNormalizer;
+import com.eurovision.sandbox.cities.domain.index.NameSnapshot;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+@Service
+@Log4j2
+public class CitySuggestionServiceImpl implements CitySuggestionService {
+
+    static final int MAX_SUGGESTIONS = 50;
+
+    private final CitiesRepository citiesRepository;
+    private final NameSnapshotService nameSnapshotService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer loadTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    //Replaced by an empty snapshot when cities change, so an index loaded before is never read again
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot());
+
+    public CitySuggestionServiceImpl(CitiesRepository citiesRepository, NameSnapshotService nameSnapshotService,
+                                     PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.citiesRepository = citiesRepository;
+        this.nameSnapshotService = nameSnapshotService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.loadTimer = meterRegistry.timer("cities.suggestions.load");
+        this.cacheHits = meterRegistry.counter("cities.cache.gets", "cache", "citySuggestions", "result", "hit");
+        this.cacheMisses = meterRegistry.counter("cities.cache.gets", "cache", "citySuggestions", "result", "miss");
+    }
+
+    @Override
+    public List<City> suggestCities(String prefix, int limit) {
+
+        String normalizedPrefix = NameNormalizer.normalize(prefix == null ? "" : prefix);
+        validatePrefixAndLimit(normalizedPrefix, limit);
+
+        return findIndex().findCities(normalizedPrefix, limit);
+
+    }
+
+    @Override
+    public void invalidate() {
+        snapshot.set(new Snapshot());
+    }
+
+    /**
+     * Loads the index once the application is ready, so the first suggestion does not wait for it. Failures are only
+     * logged, since the index is loaded again on the first suggestion
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            findIndex();
+        } catch (RuntimeException e) {
+            log.warn("City suggestions could not be loaded: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Discards the index once a transaction that changed cities commits
+     * @param event CitiesChangedEvent with the ids of the inserted, updated or deleted cities
+     */
+    @TransactionalEventListener
+    @Order(DataVersionService.REFRESH_ORDER)
+    public void onCitiesChanged(CitiesChangedEvent event) {
+        invalidate();
+    }
+
+    private CityPrefixIndex findIndex() {
+        Snapshot current = snapshot.get();
+        CityPrefixIndex index = current.index;
+        if (index != null) {
+            cacheHits.increment();
+            return index;
+        }
+        cacheMisses.increment();
+        //Requests arriving while the index loads wait for it instead of loading it again
+        synchronized (current) {
+            if (current.index == null) {
+                current.index = loadTimer.record(this::load);
+            }
+            return current.index;
+        }
+    }
+
+    private CityPrefixIndex load() {
+        Optional<NameSnapshot> citiesSnapshot = nameSnapshotService.findCitiesSnapshot();
+        List<City> cities;
+        if (citiesSnapshot.isPresent()) {
+            log.info("Loading names of all cities for suggestions from snapshot");
+            cities = citiesSnapshot.get().findCities(0, citiesSnapshot.get().getMaxLength());
+        } else {
+            log.info("Loading names of all cities for suggestions from database");
+            List<City> read = new ArrayList<>();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<City> stream = citiesRepository.streamAllOrderedByNameAndId()) {
+                    stream.forEach(read::add);
+                }
+            });
+            cities = read;
+        }
+        CityPrefixIndex index = CityPrefixIndex.of(cities);
+        log.info("Indexed {} city names for suggestions", index.size());
+        return index;
+    }
+
+    /**
+     * Validates that the prefix has letters and that the number of suggestions is within bounds
+     * @param normalizedPrefix prefix normalized with NameNormalizer
+     * @param limit maximum number of cities requested
+     */
+    private void validatePrefixAndLimit(String normalizedPrefix, int limit) {
+
+        if (normalizedPrefix.isEmpty()) {
+            log.error("Prefix validation failed: there were no letters");
+            throw BadRequestException.of("Prefix must not be empty", "Cities are suggested from at least one letter");
+        }
+
+        if (limit < 1) {
+            log.error("Suggestion limit validation failed: Limit was less than 1");
+            throw BadRequestException.of("Limit must be greater than zero", "At least one city must be suggested");
+        }
+
+        if (limit > MAX_SUGGESTIONS) {
+            log.error("Suggestion limit validation failed: Limit was greater than {}", MAX_SUGGESTIONS);
+            throw BadRequestException.of("Limit is too big",
+                    String.format("Up to %d cities can be suggested", MAX_SUGGESTIONS));
+        }
+
+    }
+
+    private static class Snapshot {
+
+        //Built the first time a suggestion needs it
+        private volatile CityPrefixIndex index;
+
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.DataVersionService;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.event.WordsChangedEvent;
+import com.eurovision.sandbox.cities.domain.model.DataVersion;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.DataVersionRepository;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.DataVersionRepository.Version;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@Log4j2
+public class DataVersionServiceImpl implements DataVersionService {
+
+    static final String CITIES = "cities";
+    static final String WORDS = "words";
+
+    //Version of a table whose counter has not been created yet
+    private static final Version UNCHANGED = new Version(0, null);
+
+    private final DataVersionRepository dataVersionRepository;
+    private final long timeToLiveNanos;
+
+    //Replaced by new empty versions on every invalidation, so versions read before it are never stored
+    private final AtomicReference<CachedVersions> cachedVersions = new AtomicReference<>(CachedVersions.empty());
+
+    public DataVersionServiceImpl(DataVersionRepository dataVersionRepository,
+                                  @Value("${cities.data-version.time-to-live:5s}") Duration timeToLive) {
+        this.dataVersionRepository = dataVersionRepository;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    @Override
+    public DataVersion findCitiesVersion() {
+        Version cities = findVersions().getOrDefault(CITIES, UNCHANGED);
+        return buildDataVersion(String.format("c%d", cities.version()), cities);
+    }
+
+    @Override
+    public DataVersion findWordsVersion() {
+        Version words = findVersions().getOrDefault(WORDS, UNCHANGED);
+        return buildDataVersion(String.format("w%d", words.version()), words);
+    }
+
+    @Override
+    public DataVersion findCitiesAndWordsVersion() {
+        Map<String, Version> versions = findVersions();
+        Version cities = versions.getOrDefault(CITIES, UNCHANGED);
+        Version words = versions.getOrDefault(WORDS, UNCHANGED);
+        Version lastChanged = words.modifiedAt() == null
+                || cities.modifiedAt() != null && cities.modifiedAt().isAfter(words.modifiedAt()) ? cities : words;
+        return buildDataVersion(String.format("c%d-w%d", cities.version(), words.version()), lastChanged);
+    }
+
+    @Override
+    public void invalidate() {
+        cachedVersions.set(CachedVersions.empty());
+    }
+
+    /**
+     * Counts a change to cities in the transaction that makes it, so the new version commits with the change
+     * @param event CitiesChangedEvent with the ids of the inserted, updated or deleted cities
+     */
+    @EventListener
+    public void countCitiesChange(CitiesChangedEvent event) {
+        dataVersionRepository.increment(CITIES);
+    }
+
+    /**
+     * Counts a change to words in the transaction that makes it, so the new version commits with the change
+     * @param event WordsChangedEvent with the inserted, updated or deleted words
+     */
+    @EventListener
+    public void countWordsChange(WordsChangedEvent event) {
+        dataVersionRepository.increment(WORDS);
+    }
+
+    /**
+     * Discards the cached versions once a transaction that changed cities commits. It runs after the
+     * listeners ordered to refresh the data derived from cities, so the new version is only served once they are done
+     * @param event CitiesChangedEvent with the ids of the inserted, updated or deleted cities
+     */
+    @TransactionalEventListener
+    @Order(INVALIDATION_ORDER)
+    public void onCitiesChanged(CitiesChangedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Discards the cached versions once a transaction that changed words commits. It runs after the
+     * listeners ordered to refresh the data derived from words, so the new version is only served once they are done
+     * @param event WordsChangedEvent with the inserted, updated or deleted words
+     */
+    @TransactionalEventListener
+    @Order(INVALIDATION_ORDER)
+    public void onWordsChanged(WordsChangedEvent event) {
+        invalidate();
+    }
+
+    private Map<String, Version> findVersions() {
+        CachedVersions current = cachedVersions.get();
+        long now = System.nanoTime();
+        if (current.versions != null && now - current.readAt < timeToLiveNanos) {
+            return current.versions;
+        }
+        log.info("Reading data versions from database");
+        Map<String, Version> versions = dataVersionRepository.findAll();
+        //A concurrent invalidation replaced the cached versions, so versions read before it are not stored
+        cachedVersions.compareAndSet(current, new CachedVersions(versions, now));
+        return versions;
+    }
+
+    private DataVersion buildDataVersion(String tag, Version lastChanged) {
+        return DataVersion.builder()
+                .eTag("W/\"" + tag + "\"")
+                .lastModified(lastChanged.modifiedAt() == null ? -1 : lastChanged.modifiedAt().toEpochMilli())
+                .build();
+    }
+
+    /**
+     * Versions and when they were read. Compared by identity, so every empty one is a different one
+     */
+    private static final class CachedVersions {
+
+        private final Map<String, Version> versions;
+        private final long readAt;
+
+        private CachedVersions(Map<String, Version> versions, long readAt) {
+            this.versions = versions;
+            this.readAt = readAt;
+        }
+
+        private static CachedVersions empty() {
+            return new CachedVersions(null, 0);
+        }
+
+    }
+
+}
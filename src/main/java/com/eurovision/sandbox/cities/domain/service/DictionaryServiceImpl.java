@@ -0,0 +1,159 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.DictionaryService;
+import com.eurovision.sandbox.cities.domain.component.NameSnapshotService;
+import com.eurovision.sandbox.cities.domain.event.WordsChangedEvent;
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
+import com.eurovision.sandbox.cities.domain.index.NameSnapshot;
+import com.eurovision.sandbox.cities.domain.model.DictionaryWord;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.WordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+@Service
+@Log4j2
+public class DictionaryServiceImpl implements DictionaryService {
+
+    private final WordRepository wordRepository;
+    private final NameSnapshotService nameSnapshotService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer loadTimer;
+    private final Timer indexTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    //Replaced by an empty snapshot when words change, so words loaded before are never read again
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot());
+
+    public DictionaryServiceImpl(WordRepository wordRepository, NameSnapshotService nameSnapshotService,
+                                 PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.wordRepository = wordRepository;
+        this.nameSnapshotService = nameSnapshotService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.loadTimer = meterRegistry.timer("cities.dictionary.load");
+        this.indexTimer = meterRegistry.timer("cities.dictionary.index");
+        this.cacheHits = meterRegistry.counter("cities.cache.gets", "cache", "dictionary", "result", "hit");
+        this.cacheMisses = meterRegistry.counter("cities.cache.gets", "cache", "dictionary", "result", "miss");
+    }
+
+    @Override
+    public AnagramIndex findDictionary(int minLength, int maxLength) {
+        Snapshot current = snapshot.get();
+        LengthRange range = new LengthRange(minLength, maxLength);
+        AnagramIndex dictionary = current.dictionaries.get(range);
+        if (dictionary != null) {
+            cacheHits.increment();
+            return dictionary;
+        }
+        cacheMisses.increment();
+        List<String> words = findWords(current, minLength, maxLength);
+        dictionary = indexTimer.record(() -> AnagramIndex.of(words));
+        AnagramIndex concurrentDictionary = current.dictionaries.putIfAbsent(range, dictionary);
+        return concurrentDictionary != null ? concurrentDictionary : dictionary;
+    }
+
+    @Override
+    public void invalidate() {
+        snapshot.set(new Snapshot());
+    }
+
+    /**
+     * Discards the snapshot once a transaction that changed words commits. It runs before the other listeners of the
+     * event, so those reading the dictionary already see the changed words
+     * @param event WordsChangedEvent with the inserted, updated or deleted words
+     */
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onWordsChanged(WordsChangedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Gets the words of every length in the range, reading the lengths missing from the snapshot
+     * @param current snapshot of the dictionary
+     * @param minLength Minimum number of letters of the words
+     * @param maxLength Maximum number of letters of the words
+     * @return words with a normalized length in the range, shortest first
+     */
+    private List<String> findWords(Snapshot current, int minLength, int maxLength) {
+        int firstMissing = minLength;
+        while (firstMissing <= maxLength && current.wordsByLength.containsKey(firstMissing)) {
+            firstMissing++;
+        }
+        int lastMissing = maxLength;
+        while (lastMissing >= firstMissing && current.wordsByLength.containsKey(lastMissing)) {
+            lastMissing--;
+        }
+        if (firstMissing <= lastMissing) {
+            int minMissing = firstMissing;
+            int maxMissing = lastMissing;
+            loadTimer.record(() -> load(current, minMissing, maxMissing));
+        }
+
+        List<String> words = new ArrayList<>();
+        for (int length = minLength; length <= maxLength; length++) {
+            words.addAll(current.wordsByLength.get(length));
+        }
+        return words;
+    }
+
+    /**
+     * Reads the words of every length in the range from the snapshot file, or from database in one streamed query if
+     * there is no up to date snapshot, grouping them by length while they are read
+     */
+    private void load(Snapshot current, int minLength, int maxLength) {
+        Map<Integer, List<String>> loaded = new HashMap<>();
+        Optional<NameSnapshot> wordsSnapshot = nameSnapshotService.findWordsSnapshot();
+        if (wordsSnapshot.isPresent()) {
+            log.info("Loading words with {} to {} letters from snapshot", minLength, maxLength);
+            for (int length = minLength; length <= maxLength; length++) {
+                loaded.put(length, wordsSnapshot.get().findNames(length, length));
+            }
+        } else {
+            log.info("Loading words with {} to {} letters from database", minLength, maxLength);
+            for (int length = minLength; length <= maxLength; length++) {
+                loaded.put(length, new ArrayList<>());
+            }
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<DictionaryWord> words = wordRepository.streamWordsWithLengthBetween(minLength, maxLength)) {
+                    words.forEach(word -> loaded.get(word.getNameLength()).add(word.getName()));
+                }
+            });
+        }
+        //Words loaded before a concurrent invalidation go to the discarded snapshot
+        loaded.forEach((length, words) -> current.wordsByLength.putIfAbsent(length, List.copyOf(words)));
+        log.info("Loaded {} words", loaded.values().stream().mapToInt(List::size).sum());
+    }
+
+    private record LengthRange(int minLength, int maxLength) {
+    }
+
+    private static class Snapshot {
+
+        //Words by their normalized length, as read from database
+        private final Map<Integer, List<String>> wordsByLength = new ConcurrentHashMap<>();
+
+        //Indexes of the words of a range of lengths, built the first time a search needs them
+        private final Map<LengthRange, AnagramIndex> dictionaries = new ConcurrentHashMap<>();
+
+    }
+
+}
@@ -0,0 +1,265 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.ImportService;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.event.WordsChangedEvent;
+import com.eurovision.sandbox.cities.domain.exception.BadRequestException;
+import com.eurovision.sandbox.cities.domain.exception.DataProcessingException;
+import com.eurovision.sandbox.cities.domain.model.ImportFormat;
+import com.eurovision.sandbox.cities.domain.model.ImportedRow;
+import com.eurovision.sandbox.cities.dto.ImportResultDto;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.BulkImportRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+@Service
+@Log4j2
+public class ImportServiceImpl implements ImportService {
+
+    private static final String CSV_HEADER = "id,name";
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+
+    private final BulkImportRepository bulkImportRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public ImportServiceImpl(BulkImportRepository bulkImportRepository, TransactionTemplate transactionTemplate,
+                             ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                             @Value("${cities.import.batch-size:1000}") int batchSize) {
+        this.bulkImportRepository = bulkImportRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public ImportResultDto importCities(InputStream body, ImportFormat format) {
+        return importRows("cities", body, format, this::writeCities);
+    }
+
+    @Override
+    public ImportResultDto importWords(InputStream body, ImportFormat format) {
+        return importRows("words", body, format, this::writeWords);
+    }
+
+    /**
+     * Reads the rows and writes them in batches as they are received
+     * @param rowType what the rows are, for logging
+     * @param body rows in the given format
+     * @param format format of the rows
+     * @param writeBatch writes a batch in its own transaction, returning how many of its rows changed
+     * @return ImportResultDto with the number of rows imported and the rows per second
+     */
+    private ImportResultDto importRows(String rowType, InputStream body, ImportFormat format,
+                                       ToIntFunction<List<ImportedRow>> writeBatch) {
+
+        log.info("Importing {} as {} in batches of {} rows", rowType, format, batchSize);
+        long start = System.nanoTime();
+        Batches batches = new Batches(writeBatch);
+        try {
+            if (format == ImportFormat.CSV) {
+                readCsv(body, batches);
+            } else {
+                readNdjson(body, batches);
+            }
+            batches.flush();
+        } catch (IOException e) {
+            log.error("Import of {} failed after {} batches: {}", rowType, batches.written, e.getMessage());
+            throw DataProcessingException.of("An error occurred while reading the imported rows", e.getMessage());
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double rowsPerSecond = elapsedNanos == 0 ? 0 : batches.rows * 1e9 / elapsedNanos;
+        log.info("Imported {} {} ({} changed) in {} batches at {} rows per second", batches.rows,
+                rowType, batches.changedRows, batches.written, Math.round(rowsPerSecond));
+        return ImportResultDto.builder()
+                .rows(batches.rows)
+                .changedRows(batches.changedRows)
+                .batches(batches.written)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(rowsPerSecond)
+                .build();
+
+    }
+
+    /**
+     * Reads id,name lines. Names with commas or quotes are quoted, and quotes in them are doubled
+     */
+    private void readCsv(InputStream body, Batches batches) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith(BYTE_ORDER_MARK)) {
+                line = line.substring(BYTE_ORDER_MARK.length());
+            }
+            if (line.isBlank() || (lineNumber == 1 && line.replace(" ", "").equalsIgnoreCase(CSV_HEADER))) {
+                continue;
+            }
+            batches.add(parseCsvLine(line, lineNumber, batches), lineNumber);
+        }
+    }
+
+    private ImportedRow parseCsvLine(String line, long lineNumber, Batches batches) {
+        int separator = line.indexOf(',');
+        if (separator < 0) {
+            throw invalidRow(lineNumber, "expected id,name", batches);
+        }
+        Integer id;
+        try {
+            id = Integer.valueOf(line.substring(0, separator).trim());
+        } catch (NumberFormatException e) {
+            throw invalidRow(lineNumber, "id is not a number", batches);
+        }
+        String name = line.substring(separator + 1);
+        if (name.startsWith("\"")) {
+            if (name.length() < 2 || !name.endsWith("\"")) {
+                throw invalidRow(lineNumber, "quoted name is not closed", batches);
+            }
+            name = name.substring(1, name.length() - 1).replace("\"\"", "\"");
+        }
+        return ImportedRow.builder()
+                .id(id)
+                .name(name)
+                .build();
+    }
+
+    /**
+     * Reads one JSON object per line, with the id and name of a row
+     */
+    private void readNdjson(InputStream body, Batches batches) throws IOException {
+        try (MappingIterator<ImportedRow> rows = objectMapper.readerFor(ImportedRow.class).readValues(body)) {
+            while (rows.hasNextValue()) {
+                batches.add(rows.nextValue(), rows.getCurrentLocation().getLineNr());
+            }
+        } catch (JsonProcessingException e) {
+            throw invalidRow(e.getLocation() == null ? -1 : e.getLocation().getLineNr(), e.getOriginalMessage(),
+                    batches);
+        }
+    }
+
+    private BadRequestException invalidRow(long lineNumber, String reason, Batches batches) {
+        log.error("Import validation failed: line {} is not a valid row: {}", lineNumber, reason);
+        return BadRequestException.of("Invalid row",
+                String.format("Line %d is not a valid row: %s. The %d rows before it were imported", lineNumber,
+                        reason, batches.rows - batches.pending.size()));
+    }
+
+    /**
+     * Writes a batch of cities and, once its transaction commits, refreshes the data derived from the cities whose
+     * name changed
+     * @param cities ImportedRow list of the batch
+     * @return number of cities that were new or renamed
+     */
+    private int writeCities(List<ImportedRow> cities) {
+        return transactionTemplate.execute(status -> {
+            Map<Integer, String> previousNames = bulkImportRepository.findCityNames(idsOf(cities));
+            bulkImportRepository.upsertCities(cities);
+            Set<Integer> changedIds = cities.stream()
+                    .filter(city -> !city.getName().equals(previousNames.get(city.getId())))
+                    .map(ImportedRow::getId)
+                    .collect(Collectors.toSet());
+            if (!changedIds.isEmpty()) {
+                eventPublisher.publishEvent(new CitiesChangedEvent(changedIds));
+            }
+            return changedIds.size();
+        });
+    }
+
+    /**
+     * Writes a batch of words and, once its transaction commits, refreshes the data derived from the words that
+     * changed, including the spelling they replaced
+     * @param words ImportedRow list of the batch
+     * @return number of words that were new or respelled
+     */
+    private int writeWords(List<ImportedRow> words) {
+        return transactionTemplate.execute(status -> {
+            Map<Integer, String> previousNames = bulkImportRepository.findWordNames(idsOf(words));
+            bulkImportRepository.upsertWords(words);
+            Set<String> changedWords = new HashSet<>();
+            int changedRows = 0;
+            for (ImportedRow word : words) {
+                String previousName = previousNames.get(word.getId());
+                if (!word.getName().equals(previousName)) {
+                    changedRows++;
+                    changedWords.add(word.getName());
+                    if (previousName != null) {
+                        changedWords.add(previousName);
+                    }
+                }
+            }
+            if (!changedWords.isEmpty()) {
+                eventPublisher.publishEvent(new WordsChangedEvent(changedWords));
+            }
+            return changedRows;
+        });
+    }
+
+    private List<Integer> idsOf(List<ImportedRow> rows) {
+        return rows.stream().map(ImportedRow::getId).distinct().collect(Collectors.toList());
+    }
+
+    /**
+     * Rows read and not written yet, and totals of the import so far
+     */
+    private class Batches {
+
+        private final ToIntFunction<List<ImportedRow>> writeBatch;
+        private final List<ImportedRow> pending = new ArrayList<>();
+        private long rows;
+        private long changedRows;
+        private long written;
+
+        private Batches(ToIntFunction<List<ImportedRow>> writeBatch) {
+            this.writeBatch = writeBatch;
+        }
+
+        private void add(ImportedRow row, long lineNumber) {
+            if (row.getId() == null) {
+                throw invalidRow(lineNumber, "id is missing", this);
+            }
+            if (row.getName() == null || row.getName().isBlank()) {
+                throw invalidRow(lineNumber, "name is missing", this);
+            }
+            pending.add(row);
+            rows++;
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            changedRows += writeBatch.applyAsInt(List.copyOf(pending));
+            written++;
+            pending.clear();
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.NameLengthService;
+import com.eurovision.sandbox.cities.domain.model.ImportedRow;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.BulkImportRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+@Service
+@Log4j2
+public class NameLengthServiceImpl implements NameLengthService {
+
+    private final BulkImportRepository bulkImportRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public NameLengthServiceImpl(BulkImportRepository bulkImportRepository, TransactionTemplate transactionTemplate,
+                                 @Value("${cities.import.batch-size:1000}") int batchSize) {
+        this.bulkImportRepository = bulkImportRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public long fillMissingLengths() {
+        return fillMissingLengths("cities", bulkImportRepository::findCitiesWithoutLength,
+                bulkImportRepository::updateCityLengths)
+                + fillMissingLengths("words", bulkImportRepository::findWordsWithoutLength,
+                bulkImportRepository::updateWordLengths);
+    }
+
+    /**
+     * Fills in the missing lengths once the application has started, before it is ready and the permutation scores
+     * are initialized. Failures are only logged, since the application can still start without them
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void initialize() {
+        try {
+            fillMissingLengths();
+        } catch (RuntimeException e) {
+            log.warn("Name lengths could not be filled in: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Updates rows without length in batches, each one in its own transaction, until there are none left
+     * @param rowType what the rows are, for logging
+     * @param findRows finds up to the given number of rows without length
+     * @param updateLengths stores the length of the name of each row
+     * @return number of rows updated
+     */
+    private long fillMissingLengths(String rowType, IntFunction<List<ImportedRow>> findRows,
+                                    Consumer<List<ImportedRow>> updateLengths) {
+        long filled = 0;
+        List<ImportedRow> rows = findRows.apply(batchSize);
+        while (!rows.isEmpty()) {
+            List<ImportedRow> batch = rows;
+            transactionTemplate.executeWithoutResult(status -> updateLengths.accept(batch));
+            filled += batch.size();
+            rows = findRows.apply(batchSize);
+        }
+        if (filled > 0) {
+            log.info("Filled in the name length of {} {}", filled, rowType);
+        }
+        return filled;
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.NameSnapshotService;
+import com.eurovision.sandbox.cities.domain.index.NameNormalizer;
+import com.eurovision.sandbox.cities.domain.index.NameSnapshot;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.DictionaryWord;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.DataVersionRepository;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.DataVersionRepository.Version;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.WordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Service
+@Log4j2
+public class NameSnapshotServiceImpl implements NameSnapshotService {
+
+    private final CitiesRepository citiesRepository;
+    private final WordRepository wordRepository;
+    private final DataVersionRepository dataVersionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+
+    //Null when snapshots are disabled
+    private final Path directory;
+
+    private final SnapshotFile cities = new SnapshotFile(DataVersionServiceImpl.CITIES);
+    private final SnapshotFile words = new SnapshotFile(DataVersionServiceImpl.WORDS);
+
+    public NameSnapshotServiceImpl(CitiesRepository citiesRepository, WordRepository wordRepository,
+                                   DataVersionRepository dataVersionRepository,
+                                   PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                   @Value("${cities.snapshot.directory:}") String directory) {
+        this.citiesRepository = citiesRepository;
+        this.wordRepository = wordRepository;
+        this.dataVersionRepository = dataVersionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+    }
+
+    @Override
+    public Optional<NameSnapshot> findCitiesSnapshot() {
+        return findSnapshot(cities);
+    }
+
+    @Override
+    public Optional<NameSnapshot> findWordsSnapshot() {
+        return findSnapshot(words);
+    }
+
+    /**
+     * Gets the mapped snapshot if it has the current version of its table. Otherwise, the first time since the
+     * application started, maps the file or writes it again if it is missing or stale. Failures are only logged, so
+     * data is read from database as if there were no snapshot
+     */
+    private Optional<NameSnapshot> findSnapshot(SnapshotFile file) {
+        if (directory == null) {
+            return Optional.empty();
+        }
+        //Callers asking while the snapshot is written wait for it instead of reading the table themselves
+        synchronized (file) {
+            try {
+                Version version = findVersion(file.name);
+                if (file.snapshot != null && isVersion(file.snapshot, version)) {
+                    return Optional.of(file.snapshot);
+                }
+                //Changed after it was mapped: read from database until the application starts again
+                file.snapshot = null;
+                if (file.checked) {
+                    return Optional.empty();
+                }
+                file.checked = true;
+                file.snapshot = mapOrWrite(file.name, version);
+                return Optional.of(file.snapshot);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Snapshot of {} could not be used: {}", file.name, e.getMessage());
+                return Optional.empty();
+            }
+        }
+    }
+
+    private NameSnapshot mapOrWrite(String name, Version version) throws IOException {
+        Path path = directory.resolve(name + ".snapshot");
+        long start = System.nanoTime();
+        try {
+            NameSnapshot snapshot = NameSnapshot.map(path);
+            if (isVersion(snapshot, version)) {
+                meterRegistry.timer("cities.snapshot.map", "snapshot", name)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.info("Mapped snapshot of {} {} with {} rows", name, path, snapshot.size());
+                return snapshot;
+            }
+            log.info("Snapshot of {} {} is stale, at version {} instead of {}", name, path, snapshot.getDataVersion(),
+                    version.version());
+        } catch (NoSuchFileException e) {
+            log.info("Snapshot of {} {} not found", name, path);
+        } catch (IOException e) {
+            log.warn("Snapshot of {} {} is not valid: {}", name, path, e.getMessage());
+        }
+
+        start = System.nanoTime();
+        Files.createDirectories(directory);
+        if (DataVersionServiceImpl.CITIES.equals(name)) {
+            writeCities(path);
+        } else {
+            writeWords(path);
+        }
+        NameSnapshot snapshot = NameSnapshot.map(path);
+        meterRegistry.timer("cities.snapshot.write", "snapshot", name)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Wrote snapshot of {} {} with {} rows", name, path, snapshot.size());
+        return snapshot;
+    }
+
+    /**
+     * Reads every city, grouped by the number of letters of its normalized name and ordered by id. The version is
+     * read in the same transaction, so the snapshot has the version of the cities it holds
+     */
+    private void writeCities(Path path) throws IOException {
+        SortedMap<Integer, List<City>> citiesByLength = new TreeMap<>();
+        Version version = readOnlyTransaction.execute(status -> {
+            Version read = findVersion(DataVersionServiceImpl.CITIES);
+            try (Stream<City> stream = citiesRepository.streamAllOrderedByNameAndId()) {
+                stream.forEach(city -> {
+                    //Letters, as the name_length column counts them, not chars
+                    int length = NameNormalizer.length(NameNormalizer.normalize(city.getName()));
+                    citiesByLength.computeIfAbsent(length, k -> new ArrayList<>()).add(city);
+                });
+            }
+            return read;
+        });
+        citiesByLength.values().forEach(sameLength -> sameLength.sort(Comparator.comparingLong(City::getId)));
+        NameSnapshot.writeCities(path, version.version(), epochMilli(version), citiesByLength);
+    }
+
+    /**
+     * Reads every word with a known length, grouped by it. The version is read in the same transaction, so the
+     * snapshot has the version of the words it holds
+     */
+    private void writeWords(Path path) throws IOException {
+        SortedMap<Integer, List<String>> wordsByLength = new TreeMap<>();
+        Version version = readOnlyTransaction.execute(status -> {
+            Version read = findVersion(DataVersionServiceImpl.WORDS);
+            try (Stream<DictionaryWord> stream = wordRepository.streamWordsWithLengthBetween(0, Integer.MAX_VALUE)) {
+                stream.forEach(word -> wordsByLength.computeIfAbsent(word.getNameLength(), k -> new ArrayList<>())
+                        .add(word.getName()));
+            }
+            return read;
+        });
+        NameSnapshot.writeNames(path, version.version(), epochMilli(version), wordsByLength);
+    }
+
+    private Version findVersion(String name) {
+        return dataVersionRepository.findAll().getOrDefault(name, new Version(0, null));
+    }
+
+    private static boolean isVersion(NameSnapshot snapshot, Version version) {
+        return snapshot.getDataVersion() == version.version() && snapshot.getModifiedAt() == epochMilli(version);
+    }
+
+    private static long epochMilli(Version version) {
+        return version.modifiedAt() == null ? 0 : version.modifiedAt().toEpochMilli();
+    }
+
+    private static class SnapshotFile {
+
+        //Name of the table counter, and of the file
+        private final String name;
+
+        //Mapped snapshot, while it has the version of the table
+        private NameSnapshot snapshot;
+
+        //Whether the file was mapped or written since the application started
+        private boolean checked;
+
+        private SnapshotFile(String name) {
+            this.name = name;
+        }
+
+    }
+
+}
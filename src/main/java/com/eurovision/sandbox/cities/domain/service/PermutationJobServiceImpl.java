@@ -0,0 +1,284 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.CityService;
+import com.eurovision.sandbox.cities.domain.component.PermutationJobService;
+import com.eurovision.sandbox.cities.domain.component.ScoringProgress;
+import com.eurovision.sandbox.cities.domain.exception.ConflictException;
+import com.eurovision.sandbox.cities.domain.exception.DataProcessingException;
+import com.eurovision.sandbox.cities.domain.exception.NotFoundException;
+import com.eurovision.sandbox.cities.domain.exception.ProcessingException;
+import com.eurovision.sandbox.cities.domain.exception.ServiceUnavailableException;
+import com.eurovision.sandbox.cities.domain.model.PermutationJobStatus;
+import com.eurovision.sandbox.cities.dto.PermutableCityResponseDto;
+import com.eurovision.sandbox.cities.dto.PermutationJobDto;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Log4j2
+public class PermutationJobServiceImpl implements PermutationJobService {
+
+    private final CityService cityService;
+    private final ThreadPoolExecutor permutationJobExecutor;
+    private final Duration retention;
+
+    private final Map<String, PermutationJob> jobs = new ConcurrentHashMap<>();
+
+    //Jobs still queued or running by their lengths, so identical requests share them
+    private final Map<JobKey, PermutationJob> activeJobs = new ConcurrentHashMap<>();
+
+    public PermutationJobServiceImpl(CityService cityService, ThreadPoolExecutor permutationJobExecutor,
+                                     @Value("${cities.permutations.jobs.retention:10m}") Duration retention) {
+        this.cityService = cityService;
+        this.permutationJobExecutor = permutationJobExecutor;
+        this.retention = retention;
+    }
+
+    @Override
+    public PermutationJobDto submit(int minWord, int maxWord, int cityLength) {
+        cityService.validateWordAndCityLengths(minWord, maxWord, cityLength);
+        removeExpiredJobs();
+
+        JobKey key = new JobKey(minWord, maxWord, cityLength);
+        PermutationJob job = activeJobs.compute(key, (k, active) -> active != null ? active : start(k));
+        return mapToDto(job);
+    }
+
+    @Override
+    public PermutationJobDto findJob(String jobId) {
+        return mapToDto(getJob(jobId));
+    }
+
+    @Override
+    public PermutableCityResponseDto findJobResult(String jobId) {
+        PermutationJob job = getJob(jobId);
+        switch (job.getStatus()) {
+            case SUCCEEDED:
+                return job.result;
+            case FAILED:
+                throw job.failure;
+            case CANCELLED:
+                throw ConflictException.of("Job was cancelled", "Cancelled jobs have no result");
+            default:
+                throw ConflictException.of("Job has not finished",
+                        String.format("Job is %s. Its result is available once it succeeds", job.getStatus()));
+        }
+    }
+
+    @Override
+    public PermutationJobDto cancel(String jobId) {
+        PermutationJob job = getJob(jobId);
+        if (job.cancel()) {
+            log.info("Cancelled permutation job {}", jobId);
+            //Identical requests start a new job from now on
+            activeJobs.remove(job.key, job);
+            //A queued job never starts. A running one stops before scoring its next city
+            Future<?> future = job.future;
+            if (future != null) {
+                future.cancel(false);
+                permutationJobExecutor.purge();
+            }
+        }
+        return mapToDto(job);
+    }
+
+    /**
+     * Creates a job and queues it in the executor
+     * @param key lengths of the search
+     * @return PermutationJob queued
+     */
+    private PermutationJob start(JobKey key) {
+        PermutationJob job = new PermutationJob(UUID.randomUUID().toString(), key);
+        jobs.put(job.id, job);
+        try {
+            job.future = permutationJobExecutor.submit(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            log.error("Permutation job rejected: {} jobs are already queued",
+                    permutationJobExecutor.getQueue().size());
+            throw ServiceUnavailableException.of("Too many permutation jobs",
+                    "The queue of permutation jobs is full, try again later");
+        }
+        log.info("Queued permutation job {} for words of {} to {} letters and cities of {} letters",
+                job.id, key.minWord(), key.maxWord(), key.cityLength());
+        return job;
+    }
+
+    private void run(PermutationJob job) {
+        if (!job.start()) {
+            return;
+        }
+        log.info("Running permutation job {}", job.id);
+        try {
+            job.succeed(cityService.findMostPermutableCity(job.key.minWord(), job.key.maxWord(),
+                    job.key.cityLength(), progressOf(job)));
+        } catch (CancellationException e) {
+            log.info("Permutation job {} stopped after being cancelled", job.id);
+        } catch (ProcessingException e) {
+            log.error("Permutation job {} failed: {}", job.id, e.getMessage());
+            job.fail(e);
+        } catch (RuntimeException e) {
+            log.error("Permutation job {} failed", job.id, e);
+            job.fail(DataProcessingException.of("An error occurred while running the permutation job",
+                    e.getMessage()));
+        } finally {
+            activeJobs.remove(job.key, job);
+        }
+    }
+
+    /**
+     * Tracks the scored cities of a job, and stops the search once the job is cancelled
+     */
+    private ScoringProgress progressOf(PermutationJob job) {
+        return new ScoringProgress() {
+            @Override
+            public void started(int cities) {
+                job.totalCities = cities;
+                stopIfCancelled();
+            }
+
+            @Override
+            public void cityScored() {
+                stopIfCancelled();
+                job.scoredCities.incrementAndGet();
+            }
+
+            private void stopIfCancelled() {
+                if (job.getStatus() == PermutationJobStatus.CANCELLED) {
+                    throw new CancellationException(String.format("Permutation job %s was cancelled", job.id));
+                }
+            }
+        };
+    }
+
+    /**
+     * Finds a job, after forgetting the expired ones, so they are removed even when no other job is submitted
+     */
+    private PermutationJob getJob(String jobId) {
+        removeExpiredJobs();
+        PermutationJob job = jobs.get(jobId);
+        if (job == null) {
+            log.error("Job validation failed: there is no permutation job with id {}", jobId);
+            throw NotFoundException.of("Job not found",
+                    "Jobs can only be found until a while after they finish");
+        }
+        return job;
+    }
+
+    /**
+     * Forgets the jobs that finished longer ago than the retention, with their results
+     */
+    private void removeExpiredJobs() {
+        Instant expiration = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedBefore(expiration));
+    }
+
+    /**
+     * Maps a PermutationJob to the response object for the response payload
+     * @param job PermutationJob with its current state
+     * @return PermutationJobDto with the status and progress of the job
+     */
+    private PermutationJobDto mapToDto(PermutationJob job) {
+        synchronized (job) {
+            return PermutationJobDto.builder()
+                    .id(job.id)
+                    .status(job.status)
+                    .minWord(job.key.minWord())
+                    .maxWord(job.key.maxWord())
+                    .cityLength(job.key.cityLength())
+                    .scoredCities(job.scoredCities.get())
+                    .totalCities(job.totalCities)
+                    .submittedAt(job.submittedAt)
+                    .startedAt(job.startedAt)
+                    .finishedAt(job.finishedAt)
+                    .error(job.failure == null ? null : job.failure.getMessage())
+                    .build();
+        }
+    }
+
+    private record JobKey(int minWord, int maxWord, int cityLength) {
+    }
+
+    /**
+     * State of a job. Status changes are synchronized, so a job that is cancelled never runs or succeeds afterwards.
+     * The status is written last, so reading it makes the result of a finished job visible
+     */
+    private static class PermutationJob {
+
+        private final String id;
+        private final JobKey key;
+        private final Instant submittedAt = Instant.now();
+        private final AtomicInteger scoredCities = new AtomicInteger();
+        private volatile int totalCities;
+        private volatile Future<?> future;
+
+        private volatile PermutationJobStatus status = PermutationJobStatus.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile PermutableCityResponseDto result;
+        private volatile ProcessingException failure;
+
+        private PermutationJob(String id, JobKey key) {
+            this.id = id;
+            this.key = key;
+        }
+
+        private PermutationJobStatus getStatus() {
+            return status;
+        }
+
+        private synchronized boolean start() {
+            if (status != PermutationJobStatus.QUEUED) {
+                return false;
+            }
+            startedAt = Instant.now();
+            status = PermutationJobStatus.RUNNING;
+            return true;
+        }
+
+        private synchronized void succeed(PermutableCityResponseDto result) {
+            if (status == PermutationJobStatus.RUNNING) {
+                this.result = result;
+                finish(PermutationJobStatus.SUCCEEDED);
+            }
+        }
+
+        private synchronized void fail(ProcessingException failure) {
+            if (status == PermutationJobStatus.RUNNING) {
+                this.failure = failure;
+                finish(PermutationJobStatus.FAILED);
+            }
+        }
+
+        private synchronized boolean cancel() {
+            if (status.isFinished()) {
+                return false;
+            }
+            finish(PermutationJobStatus.CANCELLED);
+            return true;
+        }
+
+        private boolean finishedBefore(Instant instant) {
+            return finishedAt != null && finishedAt.isBefore(instant);
+        }
+
+        private void finish(PermutationJobStatus finalStatus) {
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+    }
+
+}
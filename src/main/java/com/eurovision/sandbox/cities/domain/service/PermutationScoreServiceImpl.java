@@ -0,0 +1,201 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.CityNameIndexService;
+import com.eurovision.sandbox.cities.domain.component.DataVersionService;
+import com.eurovision.sandbox.cities.domain.component.DictionaryService;
+import com.eurovision.sandbox.cities.domain.component.PermutationScoreService;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.event.WordsChangedEvent;
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
+import com.eurovision.sandbox.cities.domain.index.NameNormalizer;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.CityPermutations;
+import com.eurovision.sandbox.cities.domain.model.NormalizedCity;
+import com.eurovision.sandbox.cities.infrastructure.db.entity.CityEntity;
+import com.eurovision.sandbox.cities.infrastructure.db.entity.CityPermutationScoreEntity;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CityPermutationScoreRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class PermutationScoreServiceImpl implements PermutationScoreService {
+
+    private final CitiesRepository citiesRepository;
+    private final CityNameIndexService cityNameIndexService;
+    private final DictionaryService dictionaryService;
+    private final CityPermutationScoreRepository cityPermutationScoreRepository;
+    private final CityPermutationsScorer cityPermutationsScorer;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CityPermutations> findMostPermutableCity() {
+        log.info("Reading most permutable city from permutation scores");
+        return cityPermutationScoreRepository.findFirstByOrderByWordCountDescCityIdAsc()
+                .filter(score -> score.getWordCount() > 0)
+                .map(this::mapToModel);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CityPermutations> findMostPermutableCities(int count) {
+        log.info("Reading {} most permutable cities from permutation scores", count);
+        return cityPermutationScoreRepository.findByWordCountGreaterThanOrderByWordCountDescCityIdAsc(0,
+                        PageRequest.of(0, count)).stream()
+                .map(this::mapToModel)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public void rebuild() {
+        rebuildScores();
+    }
+
+    /**
+     * Computes the scores when the table is empty, after the application starts. Failures are only logged, since
+     * the most permutable city can still be calculated on request
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            if (cityPermutationScoreRepository.count() == 0) {
+                transactionTemplate.executeWithoutResult(status -> rebuildScores());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Permutation scores could not be initialized: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes the scores of the changed cities once their transaction commits
+     * @param event CitiesChangedEvent with the ids of the inserted, updated or deleted cities
+     */
+    @TransactionalEventListener
+    @Order(DataVersionService.REFRESH_ORDER)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onCitiesChanged(CitiesChangedEvent event) {
+        log.info("Updating permutation scores of {} changed cities", event.getCityIds().size());
+        //Cities changed together, like those of an imported batch, are read in one query
+        List<NormalizedCity> scoredCities = citiesRepository.findAllById(event.getCityIds()).stream()
+                .map(this::normalize)
+                .filter(this::hasScoredLength)
+                .collect(Collectors.toList());
+        //Deleted cities, or cities renamed to another length, no longer have a score
+        Set<Integer> unscoredCityIds = new HashSet<>(event.getCityIds());
+        scoredCities.forEach(c -> unscoredCityIds.remove((int) c.getCity().getId()));
+        if (!unscoredCityIds.isEmpty()) {
+            cityPermutationScoreRepository.deleteAllByIdInBatch(unscoredCityIds);
+        }
+        if (!scoredCities.isEmpty()) {
+            saveScores(cityPermutationsScorer.scoreCities(scoredCities, loadDictionary(), MIN_WORD, MAX_WORD));
+        }
+    }
+
+    /**
+     * Recomputes the scores of the cities whose letters can build any of the changed words once their transaction
+     * commits. Other cities are not affected by the change
+     * @param event WordsChangedEvent with the inserted, updated or deleted words
+     */
+    @TransactionalEventListener
+    @Order(DataVersionService.REFRESH_ORDER)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onWordsChanged(WordsChangedEvent event) {
+        AnagramIndex changedWords = AnagramIndex.of(event.getWords());
+        List<NormalizedCity> affectedCities = cityNameIndexService.findCitiesWithLength(CITY_LENGTH).stream()
+                .filter(c -> !changedWords.findWords(c.getNormalizedName(), MIN_WORD, MAX_WORD).isEmpty())
+                .collect(Collectors.toList());
+        log.info("Updating permutation scores of {} cities affected by {} changed words",
+                affectedCities.size(), event.getWords().size());
+        if (!affectedCities.isEmpty()) {
+            saveScores(cityPermutationsScorer.scoreCities(affectedCities, loadDictionary(), MIN_WORD, MAX_WORD));
+        }
+    }
+
+    private void rebuildScores() {
+        log.info("Rebuilding permutation scores of all cities");
+        List<NormalizedCity> cities = cityNameIndexService.findCitiesWithLength(CITY_LENGTH);
+        List<CityPermutations> scores = cityPermutationsScorer.scoreCities(cities, loadDictionary(), MIN_WORD,
+                MAX_WORD);
+        cityPermutationScoreRepository.deleteAllInBatch();
+        saveScores(scores);
+        log.info("Rebuilt permutation scores of {} cities", scores.size());
+    }
+
+    private AnagramIndex loadDictionary() {
+        return dictionaryService.findDictionary(MIN_WORD, MAX_WORD);
+    }
+
+    private boolean hasScoredLength(NormalizedCity city) {
+        return NameNormalizer.length(city.getNormalizedName()) == CITY_LENGTH;
+    }
+
+    /**
+     * Maps a database CityEntity to a NormalizedCity domain model object
+     * @param entity CityEntity from database
+     * @return NormalizedCity with the city and its normalized name
+     */
+    private NormalizedCity normalize(CityEntity entity) {
+        return NormalizedCity.builder()
+                .city(City.builder()
+                        .id(entity.getId())
+                        .name(entity.getName())
+                        .build())
+                .normalizedName(NameNormalizer.normalize(entity.getName()))
+                .build();
+    }
+
+    private void saveScores(List<CityPermutations> scores) {
+        cityPermutationScoreRepository.saveAll(scores.stream().map(this::mapToEntity).collect(Collectors.toList()));
+    }
+
+    /**
+     * Maps a CityPermutations domain model object to a database CityPermutationScoreEntity
+     * @param score CityPermutations with a city and its words
+     * @return CityPermutationScoreEntity to be saved in database
+     */
+    private CityPermutationScoreEntity mapToEntity(CityPermutations score) {
+        return CityPermutationScoreEntity.builder()
+                .cityId((int) score.getCity().getId())
+                .cityName(score.getCity().getName())
+                .wordCount(score.getWords().size())
+                .words(score.getWords())
+                .build();
+    }
+
+    /**
+     * Maps a database CityPermutationScoreEntity to a CityPermutations domain model object
+     * @param entity CityPermutationScoreEntity from database
+     * @return CityPermutations with the city and its words
+     */
+    private CityPermutations mapToModel(CityPermutationScoreEntity entity) {
+        return CityPermutations.builder()
+                .city(City.builder()
+                        .id(entity.getCityId())
+                        .name(entity.getCityName())
+                        .build())
+                .words(entity.getWords())
+                .build();
+    }
+
+}
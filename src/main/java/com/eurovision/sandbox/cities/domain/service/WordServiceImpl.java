@@ -0,0 +1,99 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.DictionaryService;
+import com.eurovision.sandbox.cities.domain.component.WordService;
+import com.eurovision.sandbox.cities.domain.exception.BadRequestException;
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
+import com.eurovision.sandbox.cities.domain.index.NameNormalizer;
+import com.eurovision.sandbox.cities.dto.AnagramsResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class WordServiceImpl implements WordService {
+
+    //Longest input accepted. Every lookup shares the index of the words up to this length, whatever its range
+    static final int MAX_LETTERS = 30;
+
+    private final DictionaryService dictionaryService;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public AnagramsResponseDto findAnagrams(String letters, int minLength, Integer maxLength) {
+
+        String normalizedLetters = NameNormalizer.normalize(letters == null ? "" : letters);
+        int maxWord = maxLength == null ? NameNormalizer.length(normalizedLetters) : maxLength;
+        validateLettersAndLengths(normalizedLetters, minLength, maxWord);
+
+        AnagramIndex dictionary = dictionaryService.findDictionary(1, MAX_LETTERS);
+        List<String> words = meterRegistry.timer("cities.anagrams.lookup")
+                .record(() -> dictionary.findWords(normalizedLetters, minLength, maxWord));
+
+        log.info("Found {} words of {} to {} letters in {}", words.size(), minLength, maxWord, normalizedLetters);
+
+        return AnagramsResponseDto.builder()
+                .letters(normalizedLetters)
+                .words(words)
+                .build();
+
+    }
+
+    /**
+     * Loads the dictionary once the application is ready, so the first lookup does not wait for it. Failures are
+     * only logged, since the dictionary is loaded again on the first lookup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            dictionaryService.findDictionary(1, MAX_LETTERS);
+        } catch (RuntimeException e) {
+            log.warn("Dictionary could not be loaded: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Validates that there are letters to build words with and that the range of word lengths is not empty
+     * @param letters normalized letters
+     * @param minLength Minimum number of letters of the words
+     * @param maxLength Maximum number of letters of the words
+     */
+    private void validateLettersAndLengths(String letters, int minLength, int maxLength) {
+
+        log.info("Validating letters: {} and word lengths: {} to {}", letters, minLength, maxLength);
+
+        if (letters.isEmpty()) {
+            log.error("Letters validation failed: there were no letters");
+            throw BadRequestException.of("Letters must not be empty", "Words are built with at least one letter");
+        }
+
+        //Letters outside the Basic Multilingual Plane take two chars
+        int letterCount = NameNormalizer.length(letters);
+        if (letterCount > MAX_LETTERS) {
+            log.error("Letters validation failed: there were {} letters", letterCount);
+            throw BadRequestException.of("Too many letters",
+                    String.format("Words can be built with up to %d letters", MAX_LETTERS));
+        }
+
+        if (minLength < 1) {
+            log.error("Word length validation failed: Minimum word length was less than 1");
+            throw BadRequestException.of("Minimum word length must be at least one",
+                    "Words must have at least one letter");
+        }
+
+        if (maxLength < minLength) {
+            log.error("Word length validation failed: Maximum word length was less than minimum word length");
+            throw BadRequestException.of("Maximum word length must not be less than minimum word length",
+                    "Word length range is empty");
+        }
+
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.eurovision.sandbox.cities.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class AnagramsResponseDto {
+
+    //letters of the request once normalized, which are the ones words are built from
+    private String letters;
+    private List<String> words;
+
+}
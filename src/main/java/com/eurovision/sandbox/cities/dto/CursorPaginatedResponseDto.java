@@ -0,0 +1,23 @@
+package com.eurovision.sandbox.cities.dto;
+
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPaginatedResponseDto {
+
+    private List<City> content;
+    private boolean last;
+    private int size;
+    //opaque token to request the following page, null on the last page
+    private String next;
+    //only filled when the total was requested
+    private Long totalElements;
+
+}
@@ -0,0 +1,18 @@
+package com.eurovision.sandbox.cities.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ImportResultDto {
+
+    private long rows;
+    //rows whose name was new or different, which are the only ones refreshing derived data
+    private long changedRows;
+    //batches written, each one in its own transaction
+    private long batches;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+}
@@ -0,0 +1,27 @@
+package com.eurovision.sandbox.cities.dto;
+
+import com.eurovision.sandbox.cities.domain.model.PermutationJobStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class PermutationJobDto {
+
+    private String id;
+    private PermutationJobStatus status;
+    private int minWord;
+    private int maxWord;
+    private int cityLength;
+    //cities scored so far out of the cities with the requested length, known once the job starts scoring
+    private int scoredCities;
+    private int totalCities;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    //reason of the failure of a FAILED job
+    private String error;
+
+}
@@ -0,0 +1,31 @@
+package com.eurovision.sandbox.cities.infrastructure.db.converter;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores a list of dictionary words in a single column, separated by commas
+ */
+@Converter
+public class WordListConverter implements AttributeConverter<List<String>, String> {
+
+    private static final String SEPARATOR = ",";
+
+    @Override
+    public String convertToDatabaseColumn(List<String> words) {
+        return words == null ? null : String.join(SEPARATOR, words);
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String column) {
+        if (column == null || column.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(column.split(SEPARATOR)));
+    }
+
+}
@@ -1,9 +1,14 @@
 package com.eurovision.sandbox.cities.infrastructure.db.entity;
 
 
+import com.eurovision.sandbox.cities.domain.index.NameNormalizer;
+import com.eurovision.sandbox.cities.infrastructure.db.listener.CityEntityListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,6 +18,7 @@ import lombok.NoArgsConstructor;
 @Entity
 @Data
 @Table(name = "cities")
+@EntityListeners(CityEntityListener.class)
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -24,4 +30,14 @@ public class CityEntity {
     @Column(name = "name")
     private String name;
 
+    //letters of the normalized name, indexed so cities can be read by length
+    @Column(name = "name_length")
+    private Integer nameLength;
+
+    @PrePersist
+    @PreUpdate
+    void updateNameLength() {
+        nameLength = name == null ? null : NameNormalizer.length(NameNormalizer.normalize(name));
+    }
+
 }
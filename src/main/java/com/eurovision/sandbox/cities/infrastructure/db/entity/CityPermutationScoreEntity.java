@@ -0,0 +1,38 @@
+package com.eurovision.sandbox.cities.infrastructure.db.entity;
+
+import com.eurovision.sandbox.cities.infrastructure.db.converter.WordListConverter;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Entity
+@Data
+@Table(name = "city_permutation_score")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CityPermutationScoreEntity {
+
+    @Id
+    @Column(name = "city_id")
+    private Integer cityId;
+
+    @Column(name = "city_name")
+    private String cityName;
+
+    @Column(name = "word_count")
+    private int wordCount;
+
+    @Column(name = "words")
+    @Convert(converter = WordListConverter.class)
+    private List<String> words;
+
+}
@@ -1,18 +1,27 @@
 package com.eurovision.sandbox.cities.infrastructure.db.entity;
 
+import com.eurovision.sandbox.cities.domain.index.NameNormalizer;
+import com.eurovision.sandbox.cities.infrastructure.db.listener.WordEntityListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "word")
+@EntityListeners(WordEntityListener.class)
 public class WordEntity {
 
     @Id
@@ -21,4 +30,20 @@ public class WordEntity {
     @Column(name = "name")
     private String name;
 
+    //letters of the normalized word, indexed so the dictionary can be read by length
+    @Column(name = "name_length")
+    private Integer nameLength;
+
+    //name as it was loaded from database, so listeners know which word an update replaces
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private String loadedName;
+
+    @PrePersist
+    @PreUpdate
+    void updateNameLength() {
+        nameLength = name == null ? null : NameNormalizer.length(NameNormalizer.normalize(name));
+    }
+
 }
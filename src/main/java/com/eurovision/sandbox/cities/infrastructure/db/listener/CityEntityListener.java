@@ -0,0 +1,31 @@
+package com.eurovision.sandbox.cities.infrastructure.db.listener;
+
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.infrastructure.db.entity.CityEntity;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+public class CityEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Publishes a CitiesChangedEvent for every city written through JPA
+     * @param entity CityEntity inserted, updated or deleted
+     */
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(CityEntity entity) {
+        eventPublisher.publishEvent(new CitiesChangedEvent(Set.of(entity.getId())));
+    }
+
+}
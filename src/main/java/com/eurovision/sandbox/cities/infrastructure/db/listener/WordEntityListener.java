@@ -0,0 +1,48 @@
+package com.eurovision.sandbox.cities.infrastructure.db.listener;
+
+import com.eurovision.sandbox.cities.domain.event.WordsChangedEvent;
+import com.eurovision.sandbox.cities.infrastructure.db.entity.WordEntity;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+public class WordEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Keeps the name the word had when it was loaded, to know which word an update replaces
+     * @param entity WordEntity loaded from database
+     */
+    @PostLoad
+    public void onLoad(WordEntity entity) {
+        entity.setLoadedName(entity.getName());
+    }
+
+    /**
+     * Publishes a WordsChangedEvent for every word written through JPA
+     * @param entity WordEntity inserted, updated or deleted
+     */
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(WordEntity entity) {
+        Set<String> words = new HashSet<>();
+        words.add(entity.getName());
+        if (entity.getLoadedName() != null) {
+            words.add(entity.getLoadedName());
+        }
+        entity.setLoadedName(entity.getName());
+        eventPublisher.publishEvent(new WordsChangedEvent(words));
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.eurovision.sandbox.cities.infrastructure.db.repository;
+
+import com.eurovision.sandbox.cities.domain.index.NameNormalizer;
+import com.eurovision.sandbox.cities.domain.model.ImportedRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes cities and words in bulk with plain JDBC batches. JPA would insert them one by one, loading each entity
+ * first to know whether it exists, and publishing an event per row from the entity listeners
+ */
+@Repository
+@RequiredArgsConstructor
+public class BulkImportRepository {
+
+    private static final String UPSERT_CITY = "insert into cities (id, name, name_length) values (?, ?, ?) " +
+            "on duplicate key update name = values(name), name_length = values(name_length)";
+    private static final String UPSERT_WORD = "insert into word (id, name, name_length) values (?, ?, ?) " +
+            "on duplicate key update name = values(name), name_length = values(name_length)";
+    private static final String UPDATE_CITY_LENGTH = "update cities set name_length = ? where id = ?";
+    private static final String UPDATE_WORD_LENGTH = "update word set name_length = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the cities, replacing the name of those that already exist, in a single JDBC batch
+     * @param cities List of ImportedRow with the id and name of every city
+     */
+    public void upsertCities(List<ImportedRow> cities) {
+        upsert(UPSERT_CITY, cities);
+    }
+
+    /**
+     * Inserts the words, replacing the name of those that already exist, in a single JDBC batch
+     * @param words List of ImportedRow with the id and name of every word
+     */
+    public void upsertWords(List<ImportedRow> words) {
+        upsert(UPSERT_WORD, words);
+    }
+
+    /**
+     * @param ids ids of the cities
+     * @return current name of every existing city by its id
+     */
+    public Map<Integer, String> findCityNames(List<Integer> ids) {
+        return findNames("cities", ids);
+    }
+
+    /**
+     * @param ids ids of the words
+     * @return current name of every existing word by its id
+     */
+    public Map<Integer, String> findWordNames(List<Integer> ids) {
+        return findNames("word", ids);
+    }
+
+    /**
+     * @param limit maximum number of cities returned
+     * @return ImportedRow list with the id and name of cities written without the length of their name
+     */
+    public List<ImportedRow> findCitiesWithoutLength(int limit) {
+        return findRowsWithoutLength("cities", limit);
+    }
+
+    /**
+     * @param limit maximum number of words returned
+     * @return ImportedRow list with the id and name of words written without their length
+     */
+    public List<ImportedRow> findWordsWithoutLength(int limit) {
+        return findRowsWithoutLength("word", limit);
+    }
+
+    /**
+     * Sets the length of the names of the cities in a single JDBC batch
+     * @param cities List of ImportedRow with the id and name of every city
+     */
+    public void updateCityLengths(List<ImportedRow> cities) {
+        updateLengths(UPDATE_CITY_LENGTH, cities);
+    }
+
+    /**
+     * Sets the length of the words in a single JDBC batch
+     * @param words List of ImportedRow with the id and name of every word
+     */
+    public void updateWordLengths(List<ImportedRow> words) {
+        updateLengths(UPDATE_WORD_LENGTH, words);
+    }
+
+    private void upsert(String sql, List<ImportedRow> rows) {
+        jdbcTemplate.batchUpdate(sql, rows, rows.size(), (statement, row) -> {
+            statement.setInt(1, row.getId());
+            statement.setString(2, row.getName());
+            statement.setInt(3, lengthOf(row.getName()));
+        });
+    }
+
+    private void updateLengths(String sql, List<ImportedRow> rows) {
+        jdbcTemplate.batchUpdate(sql, rows, rows.size(), (statement, row) -> {
+            statement.setInt(1, lengthOf(row.getName()));
+            statement.setInt(2, row.getId());
+        });
+    }
+
+    private List<ImportedRow> findRowsWithoutLength(String table, int limit) {
+        String sql = String.format("select id, name from %s where name_length is null and name is not null limit ?",
+                table);
+        return jdbcTemplate.query(sql,
+                (resultSet, rowNumber) -> new ImportedRow(resultSet.getInt(1), resultSet.getString(2)), limit);
+    }
+
+    //Same length as the entities store, so rows are found by length however they were written
+    private int lengthOf(String name) {
+        return NameNormalizer.length(NameNormalizer.normalize(name));
+    }
+
+    private Map<Integer, String> findNames(String table, List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Map<Integer, String> names = new HashMap<>();
+        jdbcTemplate.query(String.format("select id, name from %s where id in (%s)", table, placeholders),
+                resultSet -> {
+                    names.put(resultSet.getInt(1), resultSet.getString(2));
+                }, ids.toArray());
+        return names;
+    }
+
+}
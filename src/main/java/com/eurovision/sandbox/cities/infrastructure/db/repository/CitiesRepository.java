@@ -1,30 +1,72 @@
 package com.eurovision.sandbox.cities.infrastructure.db.repository;
 
+import com.eurovision.sandbox.cities.domain.model.City;
 import com.eurovision.sandbox.cities.infrastructure.db.entity.CityEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CitiesRepository extends JpaRepository<CityEntity, Integer> {
 
-    Page<CityEntity> findAllByOrderByNameAsc(Pageable pageable);
+    //Read-only listings project straight into the domain model, so no entity is managed by the persistence context
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query(
+            value = "select new com.eurovision.sandbox.cities.domain.model.City(c.id, c.name) from CityEntity c",
+            countQuery = "select count(c) from CityEntity c"
+    )
+    Page<City> findCityPage(Pageable pageable);
 
+    //Returning a slice skips the count query a page would run
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.eurovision.sandbox.cities.domain.model.City(c.id, c.name) from CityEntity c " +
+            "order by c.name asc, c.id asc")
+    Slice<City> findCitySliceOrderedByName(Pageable pageable);
+
+    //Row count kept in the table statistics. It is approximate for InnoDB tables, but does not scan the table
     @Query(
-            value = "select subquery.id as id, subquery.cityName as name from " +
-                    "(" +
-                        "select c.name as cityName, " +
-                        "c.id as id, " +
-                        "char_length(c.name) as length " +
-                        "from cities c" +
-                    ") subquery " +
-                    "where subquery.length = 7",
+            value = "select t.table_rows from information_schema.tables t " +
+                    "where t.table_schema = database() and t.table_name = 'cities'",
             nativeQuery = true
     )
-    List<CityEntity> findCitiesWithSevenLetters();
+    Long estimateCount();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.eurovision.sandbox.cities.domain.model.City(c.id, c.name) from CityEntity c " +
+            "order by c.name asc, c.id asc")
+    List<City> findFirstCitiesOrderedByNameAndId(Pageable pageable);
+
+    //Seeks (name, id) > (:name, :id). The leading name condition lets the (name, id) index be range scanned
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.eurovision.sandbox.cities.domain.model.City(c.id, c.name) from CityEntity c " +
+            "where c.name >= :name and (c.name > :name or c.id > :id) " +
+            "order by c.name asc, c.id asc")
+    List<City> findCitiesOrderedByNameAndIdAfter(@Param("name") String name, @Param("id") Integer id,
+                                                 Pageable pageable);
+
+    //Forward-only cursor: the driver fetches rows in batches of the fetch size instead of loading the whole table
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.eurovision.sandbox.cities.domain.model.City(c.id, c.name) from CityEntity c " +
+            "order by c.name asc, c.id asc")
+    Stream<City> streamAllOrderedByNameAndId();
+
+    //Range scan of the (name_length, id, name) index, which covers the query
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select new com.eurovision.sandbox.cities.domain.model.City(c.id, c.name) from CityEntity c " +
+            "where c.nameLength between :minLength and :maxLength order by c.nameLength asc, c.id asc")
+    List<City> findCitiesWithLengthBetween(@Param("minLength") int minLength, @Param("maxLength") int maxLength);
 
 }
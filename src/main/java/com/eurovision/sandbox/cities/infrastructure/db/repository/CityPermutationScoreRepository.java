@@ -0,0 +1,19 @@
+package com.eurovision.sandbox.cities.infrastructure.db.repository;
+
+import com.eurovision.sandbox.cities.infrastructure.db.entity.CityPermutationScoreEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CityPermutationScoreRepository extends JpaRepository<CityPermutationScoreEntity, Integer> {
+
+    Optional<CityPermutationScoreEntity> findFirstByOrderByWordCountDescCityIdAsc();
+
+    List<CityPermutationScoreEntity> findByWordCountGreaterThanOrderByWordCountDescCityIdAsc(int wordCount,
+                                                                                             Pageable pageable);
+
+}
@@ -0,0 +1,52 @@
+package com.eurovision.sandbox.cities.infrastructure.db.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and increases the change counters of the data_version table with plain JDBC. Counters are increased while
+ * JPA may be flushing the changes that caused them, so they must not go through the persistence context
+ */
+@Repository
+@RequiredArgsConstructor
+public class DataVersionRepository {
+
+    private static final String INCREMENT = "insert into data_version (name, version, modified_at) " +
+            "values (?, 1, current_timestamp(3)) " +
+            "on duplicate key update version = version + 1, modified_at = current_timestamp(3)";
+    private static final String FIND_ALL = "select name, version, modified_at from data_version";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Increases the counter of a table, creating it the first time. The row stays locked until the transaction ends
+     * @param name name of the counter
+     */
+    public void increment(String name) {
+        jdbcTemplate.update(INCREMENT, name);
+    }
+
+    /**
+     * @return every counter by its name
+     */
+    public Map<String, Version> findAll() {
+        Map<String, Version> versions = new HashMap<>();
+        jdbcTemplate.query(FIND_ALL, rs -> {
+            versions.put(rs.getString("name"),
+                    new Version(rs.getLong("version"), rs.getTimestamp("modified_at").toInstant()));
+        });
+        return versions;
+    }
+
+    /**
+     * Value of a counter and when it was last increased
+     */
+    public record Version(long version, Instant modifiedAt) {
+    }
+
+}
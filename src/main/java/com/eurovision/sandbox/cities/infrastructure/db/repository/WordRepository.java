@@ -1,23 +1,32 @@
 package com.eurovision.sandbox.cities.infrastructure.db.repository;
 
+import com.eurovision.sandbox.cities.domain.model.DictionaryWord;
 import com.eurovision.sandbox.cities.infrastructure.db.entity.WordEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface WordRepository extends JpaRepository<WordEntity, Integer> {
 
     List<WordEntity> findAll();
 
-    @Query(value = "select subquery.wordName from " +
-            "(" +
-                "select w.name as wordName, " +
-                "char_length(w.name) as length from word w" +
-            ") subquery " +
-            "where subquery.length = ?1", nativeQuery = true)
-    List<String> findNumberedLetteredWords(int length);
+    //Range scan of the (name_length, name) index, which covers the query. Words of every length in the range are read
+    //in one query, fetched in batches of the fetch size instead of all at once
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.eurovision.sandbox.cities.domain.model.DictionaryWord(w.name, w.nameLength) " +
+            "from WordEntity w where w.nameLength between :minLength and :maxLength")
+    Stream<DictionaryWord> streamWordsWithLengthBetween(@Param("minLength") int minLength,
+                                                        @Param("maxLength") int maxLength);
 
 }
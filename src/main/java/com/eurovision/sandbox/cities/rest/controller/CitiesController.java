@@ -1,47 +1,305 @@
 package com.eurovision.sandbox.cities.rest.controller;
 
+import com.eurovision.sandbox.cities.config.WireFormatConfig;
 import com.eurovision.sandbox.cities.domain.component.CityService;
+import com.eurovision.sandbox.cities.domain.component.CitySuggestionService;
+import com.eurovision.sandbox.cities.domain.component.DataVersionService;
+import com.eurovision.sandbox.cities.domain.component.PermutationJobService;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.DataVersion;
+import com.eurovision.sandbox.cities.dto.CursorPaginatedResponseDto;
 import com.eurovision.sandbox.cities.dto.PaginatedResponseDto;
 import com.eurovision.sandbox.cities.dto.PermutableCityResponseDto;
+import com.eurovision.sandbox.cities.dto.PermutationJobDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/cities")
 @RequiredArgsConstructor
 public class CitiesController {
 
+    private static final String NDJSON_SEPARATOR = "\n";
+
     private final CityService cityService;
+    private final PermutationJobService permutationJobService;
+    private final CitySuggestionService citySuggestionService;
+    private final DataVersionService dataVersionService;
+    private final ObjectMapper objectMapper;
 
     /**
      * @param page The page number requested in the pagination
      * @param size The number of elements per page
+     * @param request The request, answered with 304 if the client has the page of the current version of the cities
      * @return: ResponseEntity with PaginatedResponseDto as its body
      */
 
     /*This annotation should only be uncommented when running frontend and backend applications in the same server,
     and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
     //@CrossOrigin(origins = "http://localhost:63342")
-    @GetMapping(value = "/queryByPage", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<PaginatedResponseDto> queryCitiesByPage(@RequestParam int page, @RequestParam int size) {
+    @GetMapping(value = "/queryByPage", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormatConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<PaginatedResponseDto> queryCitiesByPage(@RequestParam int page, @RequestParam int size,
+                                                                  WebRequest request) {
+        if (isNotModified(request, dataVersionService.findCitiesVersion())) {
+            return null;
+        }
         PaginatedResponseDto response = cityService.findCitiesInAlphabeticalOrderAscendant(page, size);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Keyset pagination of cities in alphabetical order. Each page seeks past the last city of the previous one, so
+     * deep pages are as fast as the first
+     * @param next The next token of the previous page. Omitted for the first page
+     * @param size The number of elements per page
+     * @param withTotal Whether the response should include the total number of cities
+     * @param request The request, answered with 304 if the client has the page of the current version of the cities
+     * @return ResponseEntity with CursorPaginatedResponseDto as its body
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @GetMapping(value = "/queryByCursor", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormatConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<CursorPaginatedResponseDto> queryCitiesByCursor(
+            @RequestParam(required = false) String next, @RequestParam int size,
+            @RequestParam(defaultValue = "false") boolean withTotal, WebRequest request) {
+        if (isNotModified(request, dataVersionService.findCitiesVersion())) {
+            return null;
+        }
+        CursorPaginatedResponseDto response = cityService.findCitiesInAlphabeticalOrderAfter(next, size, withTotal);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Exports all cities in alphabetical order as newline delimited JSON, one city per line. Cities are written
+     * while they are read from database, so memory use does not depend on the number of cities
+     * @param request The request, answered with 304 if the client has the current version of the cities
+     * @return ResponseEntity with a body streamed to the client
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCities(WebRequest request) {
+        if (isNotModified(request, dataVersionService.findCitiesVersion())) {
+            return null;
+        }
+        //Flushing after every city would send one network packet per line
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(new SerializedString(NDJSON_SEPARATOR));
+                cityService.forEachCityInAlphabeticalOrder(city -> {
+                    try {
+                        writer.writeValue(generator, city);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                //Every line ends with a separator, including the last one
+                if (generator.getOutputContext().getEntryCount() > 0) {
+                    generator.writeRaw(NDJSON_SEPARATOR);
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Endpoint for exercise b of the test
+     * @param request The request, answered with 304 if the client has the result for the current version of the
+     *                cities and words
      * @return ResponseEntity with body containing the most permutable city and all its permutations
      */
 
     /*This annotation should only be uncommented when running frontend and backend applications in the same server,
     and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
     //@CrossOrigin(origins = "http://localhost:63342")
-    @GetMapping(value = "/mostPermutableCity", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<PermutableCityResponseDto> findMostPermutableCity() {
+    @GetMapping(value = "/mostPermutableCity", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormatConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<PermutableCityResponseDto> findMostPermutableCity(WebRequest request) {
+        if (isNotModified(request, dataVersionService.findCitiesAndWordsVersion())) {
+            return null;
+        }
         PermutableCityResponseDto response = cityService.findMostPermutableCity();
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Generalization of exercise b of the test for any city name length and range of word lengths
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param cityLength Length of the names of the cities to check
+     * @param request The request, answered with 304 if the client has the result for the current version of the
+     *                cities and words
+     * @return ResponseEntity with body containing the most permutable city and all its permutations
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @GetMapping(value = "/mostPermutable", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormatConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<PermutableCityResponseDto> findMostPermutableCity(
+            @RequestParam(defaultValue = "5") int minWord, @RequestParam(defaultValue = "7") int maxWord,
+            @RequestParam(defaultValue = "7") int cityLength, WebRequest request) {
+        if (isNotModified(request, dataVersionService.findCitiesAndWordsVersion())) {
+            return null;
+        }
+        PermutableCityResponseDto response = cityService.findMostPermutableCity(minWord, maxWord, cityLength);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Ranking of the most permutable cities, found in the same single pass as the most permutable one
+     * @param n Maximum number of cities in the ranking
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param cityLength Length of the names of the cities to check
+     * @param request The request, answered with 304 if the client has the ranking for the current version of the
+     *                cities and words
+     * @return ResponseEntity with body containing the most permutable cities, most words first, and their permutations
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @GetMapping(value = "/permutableRanking", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormatConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<List<PermutableCityResponseDto>> findPermutableCityRanking(
+            @RequestParam(defaultValue = "10") int n, @RequestParam(defaultValue = "5") int minWord,
+            @RequestParam(defaultValue = "7") int maxWord, @RequestParam(defaultValue = "7") int cityLength,
+            WebRequest request) {
+        if (isNotModified(request, dataVersionService.findCitiesAndWordsVersion())) {
+            return null;
+        }
+        List<PermutableCityResponseDto> response = cityService.findMostPermutableCities(minWord, maxWord,
+                cityLength, n);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Suggests cities whose name starts with the prefix, for type-ahead search. Names are looked up in memory, so
+     * suggestions do not query the database
+     * @param prefix The beginning of the name. Case, accents and characters other than letters are ignored
+     * @param limit The maximum number of cities suggested, up to 50
+     * @param request The request, answered with 304 if the client has the suggestions for the current version of the
+     *                cities
+     * @return ResponseEntity with the list of City as its body, in alphabetical order of their normalized names
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @GetMapping(value = "/suggest", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormatConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<List<City>> suggestCities(@RequestParam String prefix,
+                                                    @RequestParam(defaultValue = "10") int limit,
+                                                    WebRequest request) {
+        if (isNotModified(request, dataVersionService.findCitiesVersion())) {
+            return null;
+        }
+        List<City> response = citySuggestionService.suggestCities(prefix, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Starts a search for the most permutable city in the background. An identical search that is still queued or
+     * running is returned instead of starting another one
+     * @param minWord Minimum length of the words built from the city name
+     * @param maxWord Maximum length of the words built from the city name
+     * @param cityLength Length of the names of the cities to check
+     * @return ResponseEntity with status 202, the location of the job and its status as body
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @PostMapping(value = "/mostPermutable/jobs", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PermutationJobDto> submitMostPermutableCityJob(
+            @RequestParam(defaultValue = "5") int minWord, @RequestParam(defaultValue = "7") int maxWord,
+            @RequestParam(defaultValue = "7") int cityLength) {
+        PermutationJobDto response = permutationJobService.submit(minWord, maxWord, cityLength);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{jobId}")
+                .buildAndExpand(response.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(response);
+    }
+
+    /**
+     * @param jobId id of the job returned when it was started
+     * @return ResponseEntity with the status and progress of the job as body
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @GetMapping(value = "/mostPermutable/jobs/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PermutationJobDto> findMostPermutableCityJob(@PathVariable String jobId) {
+        PermutationJobDto response = permutationJobService.findJob(jobId);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * @param jobId id of the job returned when it was started
+     * @return ResponseEntity with body containing the most permutable city and all its permutations, once the job
+     * has succeeded
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @GetMapping(value = "/mostPermutable/jobs/{jobId}/result", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormatConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<PermutableCityResponseDto> findMostPermutableCityJobResult(@PathVariable String jobId) {
+        PermutableCityResponseDto response = permutationJobService.findJobResult(jobId);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * @param jobId id of the job returned when it was started
+     * @return ResponseEntity with the status of the cancelled job as body
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @DeleteMapping(value = "/mostPermutable/jobs/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PermutationJobDto> cancelMostPermutableCityJob(@PathVariable String jobId) {
+        PermutationJobDto response = permutationJobService.cancel(jobId);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Answers the request with 304 Not Modified, before any data is read, if the client already has the response
+     * for this version of the data. Otherwise the ETag and Last-Modified headers of the version are set on the
+     * response
+     * @param request The request, with its If-None-Match or If-Modified-Since headers
+     * @param version DataVersion of the data the response is derived from
+     * @return true if the response is complete with status 304
+     */
+    private boolean isNotModified(WebRequest request, DataVersion version) {
+        return request.checkNotModified(version.getETag(), version.getLastModified());
+    }
+
 }
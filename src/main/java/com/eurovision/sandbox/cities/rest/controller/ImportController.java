@@ -0,0 +1,64 @@
+package com.eurovision.sandbox.cities.rest.controller;
+
+import com.eurovision.sandbox.cities.domain.component.ImportService;
+import com.eurovision.sandbox.cities.domain.model.ImportFormat;
+import com.eurovision.sandbox.cities.dto.ImportResultDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/import")
+@RequiredArgsConstructor
+public class ImportController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final ImportService importService;
+
+    /**
+     * Inserts or replaces cities by id. The body is read while it is received, so its size is not limited by memory
+     * @param contentType text/csv for id,name lines, or application/x-ndjson for one JSON object per line
+     * @param body rows of cities
+     * @return ResponseEntity with the number of rows imported and the rows per second as body
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @PostMapping(value = "/cities", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportResultDto> importCities(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                        InputStream body) {
+        ImportResultDto response = importService.importCities(body, formatOf(contentType));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Inserts or replaces dictionary words by id. The body is read while it is received, so its size is not limited
+     * by memory
+     * @param contentType text/csv for id,name lines, or application/x-ndjson for one JSON object per line
+     * @param body rows of words
+     * @return ResponseEntity with the number of rows imported and the rows per second as body
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @PostMapping(value = "/words", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportResultDto> importWords(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                       InputStream body) {
+        ImportResultDto response = importService.importWords(body, formatOf(contentType));
+        return ResponseEntity.ok(response);
+    }
+
+    private ImportFormat formatOf(MediaType contentType) {
+        return contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON) ? ImportFormat.NDJSON : ImportFormat.CSV;
+    }
+
+}
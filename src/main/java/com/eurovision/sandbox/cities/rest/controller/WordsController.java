@@ -0,0 +1,51 @@
+package com.eurovision.sandbox.cities.rest.controller;
+
+import com.eurovision.sandbox.cities.config.WireFormatConfig;
+import com.eurovision.sandbox.cities.domain.component.DataVersionService;
+import com.eurovision.sandbox.cities.domain.component.WordService;
+import com.eurovision.sandbox.cities.domain.model.DataVersion;
+import com.eurovision.sandbox.cities.dto.AnagramsResponseDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/api/words")
+@RequiredArgsConstructor
+public class WordsController {
+
+    private final WordService wordService;
+    private final DataVersionService dataVersionService;
+
+    /**
+     * Finds the dictionary words that can be built with some of the given letters, from the dictionary kept in
+     * memory
+     * @param letters The letters to build words with
+     * @param min The minimum number of letters of the words
+     * @param max The maximum number of letters of the words. Omitted to allow as many as there are letters
+     * @param request The request, answered with 304 if the client has the words for the current version of the
+     *                dictionary
+     * @return ResponseEntity with AnagramsResponseDto as its body
+     */
+
+    /*This annotation should only be uncommented when running frontend and backend applications in the same server,
+    and for testing purposes only. NEVER DEPLOY IN HIGHER ENVIRONMENTS*/
+    //@CrossOrigin(origins = "http://localhost:63342")
+    @GetMapping(value = "/anagrams", produces = {MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, WireFormatConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<AnagramsResponseDto> findAnagrams(@RequestParam String letters,
+                                                            @RequestParam(defaultValue = "1") int min,
+                                                            @RequestParam(required = false) Integer max,
+                                                            WebRequest request) {
+        //Answered before the dictionary is read if the client already has the words for this version of it
+        DataVersion version = dataVersionService.findWordsVersion();
+        if (request.checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        AnagramsResponseDto response = wordService.findAnagrams(letters, min, max);
+        return ResponseEntity.ok(response);
+    }
+
+}
@@ -0,0 +1,31 @@
+-- Schema objects owned by the application, on top of the cities and word tables created by the Docker seed.
+-- Every statement is idempotent, so the whole file can be applied again after any change.
+
+-- Precomputed words that can be built with the letters of each seven-letter city (five to seven-letter words)
+CREATE TABLE IF NOT EXISTS city_permutation_score (
+    city_id INT NOT NULL PRIMARY KEY,
+    city_name VARCHAR(255) NOT NULL,
+    word_count INT NOT NULL,
+    words TEXT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_city_permutation_score_ranking ON city_permutation_score (word_count DESC, city_id);
+
+-- Keyset pagination of cities in alphabetical order seeks on (name, id)
+CREATE INDEX IF NOT EXISTS idx_cities_name_id ON cities (name, id);
+
+-- Letters of the normalized name, so cities and words are read by length with index range scans. The application
+-- keeps it up to date and fills it in at startup for rows written without it
+ALTER TABLE cities ADD COLUMN IF NOT EXISTS name_length INT NULL;
+ALTER TABLE word ADD COLUMN IF NOT EXISTS name_length INT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_cities_name_length ON cities (name_length, id, name);
+CREATE INDEX IF NOT EXISTS idx_word_name_length ON word (name_length, name);
+
+-- Change counter of the cities and word tables, increased in the same transaction as every change the application
+-- makes to them. Responses derived from the tables are tagged with it, so clients can revalidate them cheaply
+CREATE TABLE IF NOT EXISTS data_version (
+    name VARCHAR(32) NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL,
+    modified_at TIMESTAMP(3) NOT NULL
+);
@@ -0,0 +1,117 @@
+package com.eurovision.sandbox.cities.domain.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnagramIndexTest {
+
+    private final List<String> dictionary = List.of(
+            "brede", "breed", "reebd", "dereb", "dozen", "zendo", "dozed", "lited", "BREED",
+            "breded", "breede", "bdeeer", "dozens", "sozend", "tilted",
+            "beerded", "zosendt", "delitte"
+    );
+
+    @Test
+    void findWordsMatchesPermutationSearch() {
+        //given
+        AnagramIndex classToTest = AnagramIndex.of(dictionary);
+
+        for (String city : List.of("Deerbed", "denzost", "elitted", "Zosendt")) {
+            for (int length = 5; length <= 7; length++) {
+                //when
+                List<String> actualResult = classToTest.findWords(city, length);
+                //then
+                List<String> expectedResult = new ArrayList<>();
+                findPermutations(city, length, "", expectedResult);
+                assertEquals(expectedResult, actualResult);
+            }
+        }
+
+    }
+
+    @Test
+    void findWordsInRangeMatchesPermutationSearch() {
+        //given
+        AnagramIndex classToTest = AnagramIndex.of(dictionary);
+
+        //Names long enough for the dictionary scan to be cheaper than enumerating their subsets
+        for (String city : List.of("Deerbedz", "denzostl", "elittedb")) {
+            //when
+            List<String> actualResult = classToTest.findWords(city, 5, 7);
+            //then
+            List<String> expectedResult = new ArrayList<>();
+            for (int length = 5; length <= 7; length++) {
+                findPermutations(city, length, "", expectedResult);
+            }
+            assertEquals(expectedResult, actualResult);
+        }
+
+    }
+
+    @Test
+    void findWordsLongerThanName() {
+        //given
+        AnagramIndex classToTest = AnagramIndex.of(dictionary);
+        //then
+        assertTrue(classToTest.findWords("breed", 6).isEmpty());
+    }
+
+    @Test
+    void findWordsThatCannotBePacked() {
+        //given
+        AnagramIndex classToTest = AnagramIndex.of(List.of("ørsted", "Stredø", "aaaaaaaa", "orsted", "aaaaaaa"));
+        //then
+        assertEquals(List.of("ørsted", "stredø"), classToTest.findWords("Ørsted", 6));
+        assertEquals(List.of("orsted"), classToTest.findWords("Orsted", 6));
+        assertEquals(List.of("aaaaaaa", "aaaaaaaa"), classToTest.findWords("Aaaaaaaa", 7, 8));
+        assertTrue(classToTest.findWords("Aaaaaaa", 8).isEmpty());
+    }
+
+    @Test
+    void findWordsIgnoresAccentsAndNonLetters() {
+        //given
+        AnagramIndex classToTest = AnagramIndex.of(List.of("Zürich", "ri-chuz", "o'clock", "Ölçek"));
+        //then
+        assertEquals(List.of("zurich", "richuz"), classToTest.findWords("zurich", 6));
+        assertEquals(List.of("oclock"), classToTest.findWords("oclock", 6));
+        assertEquals(List.of("olcek"), classToTest.findWords("olcek", 5));
+    }
+
+    @Test
+    void findWordsOutsideBasicPlane() {
+        //given
+        //Deseret letters, each one taking two chars
+        String ew = "\uD801\uDC28";
+        String ee = "\uD801\uDC29";
+        String ah = "\uD801\uDC2A";
+        AnagramIndex classToTest = AnagramIndex.of(List.of(ew + ee, ee + ew, ew, ew + ah, "e" + ew));
+        //then
+        assertEquals(List.of(ew + ee, ee + ew), classToTest.findWords(ew + ee, 2));
+        assertEquals(List.of(ew, ew + ee, ee + ew), classToTest.findWords(ew + ee, 1, 2));
+        assertTrue(classToTest.findWords(ew + ee, 3, 4).isEmpty());
+        assertEquals(List.of(ew, ew + ah), classToTest.findWords(ah + ew, 1, 2));
+        assertEquals(List.of(ew, "e" + ew), classToTest.findWords("e" + ew, 1, 2));
+    }
+
+    /**
+     * Reference implementation: the original brute-force permutation search
+     */
+    private void findPermutations(String cityName, int numberOfElements, String prefix, List<String> result) {
+        if (prefix.length() == numberOfElements) {
+            if (dictionary.stream().filter(w -> w.length() == numberOfElements).anyMatch(prefix::equalsIgnoreCase)
+                    && result.stream().noneMatch(prefix::equalsIgnoreCase)) {
+                result.add(prefix.toLowerCase());
+            }
+        } else {
+            for (int i = 0; i < cityName.length(); i++) {
+                findPermutations(cityName.substring(0, i) + cityName.substring(i + 1),
+                        numberOfElements, prefix + cityName.charAt(i), result);
+            }
+        }
+    }
+
+}
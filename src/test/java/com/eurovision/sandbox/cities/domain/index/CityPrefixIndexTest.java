@@ -0,0 +1,44 @@
+package com.eurovision.sandbox.cities.domain.index;
+
+import com.eurovision.sandbox.cities.domain.model.City;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityPrefixIndexTest {
+
+    private final CityPrefixIndex classToTest = CityPrefixIndex.of(List.of(
+            new City(1, "Santiago"),
+            new City(2, "São Paulo"),
+            new City(3, "Sankt Gallen"),
+            new City(4, "Salzburg"),
+            new City(5, "SANTIAGO"),
+            new City(6, "123"),
+            new City(7, "Bern")
+    ));
+
+    @Test
+    void findCitiesByPrefix() {
+        assertEquals(List.of(new City(3, "Sankt Gallen"), new City(5, "SANTIAGO"), new City(1, "Santiago")),
+                classToTest.findCities("san", 10));
+        assertEquals(List.of(new City(2, "São Paulo")), classToTest.findCities("saop", 10));
+        assertEquals(List.of(new City(7, "Bern")), classToTest.findCities("bern", 10));
+    }
+
+    @Test
+    void findCitiesUpToLimit() {
+        assertEquals(List.of(new City(4, "Salzburg"), new City(3, "Sankt Gallen")), classToTest.findCities("sa", 2));
+    }
+
+    @Test
+    void findCitiesWithoutMatches() {
+        assertTrue(classToTest.findCities("berna", 10).isEmpty());
+        assertTrue(classToTest.findCities("zurich", 10).isEmpty());
+        assertTrue(classToTest.findCities("a", 10).isEmpty());
+        //Names without letters are not indexed
+        assertEquals(6, classToTest.size());
+    }
+
+}
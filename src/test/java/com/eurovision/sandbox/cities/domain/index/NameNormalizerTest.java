@@ -0,0 +1,25 @@
+package com.eurovision.sandbox.cities.domain.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameNormalizerTest {
+
+    @Test
+    void normalize() {
+        assertEquals("zurich", NameNormalizer.normalize("Zürich"));
+        assertEquals("saopaulo", NameNormalizer.normalize("São Paulo"));
+        assertEquals("aixenprovence", NameNormalizer.normalize("Aix-en-Provence"));
+        assertEquals("stpolten", NameNormalizer.normalize(" St. Pölten "));
+        assertEquals("łodz", NameNormalizer.normalize("Łódź"));
+        assertEquals("ωμεγα", NameNormalizer.normalize("Ωμέγα"));
+    }
+
+    @Test
+    void length() {
+        assertEquals(8, NameNormalizer.length(NameNormalizer.normalize("São Paulo")));
+        assertEquals(2, NameNormalizer.length("𝐀𝐁"));
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.eurovision.sandbox.cities.domain.index;
+
+import com.eurovision.sandbox.cities.domain.model.City;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mapWrittenCities() throws IOException {
+
+        //given
+        Path path = directory.resolve("cities.snapshot");
+        TreeMap<Integer, List<City>> citiesByLength = new TreeMap<>();
+        citiesByLength.put(4, List.of(new City(1, "Bern"), new City(7, "Roma")));
+        citiesByLength.put(8, List.of(new City(2, "São Paulo")));
+        NameSnapshot.writeCities(path, 3, 1_700_000_000_000L, citiesByLength);
+        //when
+        NameSnapshot actualResult = NameSnapshot.map(path);
+        //then
+        assertEquals(3, actualResult.getDataVersion());
+        assertEquals(1_700_000_000_000L, actualResult.getModifiedAt());
+        assertEquals(3, actualResult.size());
+        assertEquals(8, actualResult.getMaxLength());
+        assertEquals(List.of(new City(1, "Bern"), new City(7, "Roma")), actualResult.findCities(4, 4));
+        assertEquals(List.of(new City(1, "Bern"), new City(7, "Roma"), new City(2, "São Paulo")),
+                actualResult.findCities(0, Integer.MAX_VALUE));
+        assertEquals(List.of("São Paulo"), actualResult.findNames(5, 8));
+        assertTrue(actualResult.findCities(5, 7).isEmpty());
+
+    }
+
+    @Test
+    void mapWrittenNames() throws IOException {
+
+        //given
+        Path path = directory.resolve("words.snapshot");
+        TreeMap<Integer, List<String>> namesByLength = new TreeMap<>();
+        namesByLength.put(5, List.of("dozen", "zendo"));
+        namesByLength.put(6, List.of("dozens"));
+        NameSnapshot.writeNames(path, 0, 0, namesByLength);
+        //when
+        NameSnapshot actualResult = NameSnapshot.map(path);
+        //then
+        assertEquals(List.of("dozen", "zendo", "dozens"), actualResult.findNames(1, 30));
+        assertEquals(List.of("dozens"), actualResult.findNames(6, 6));
+        assertThrows(IllegalStateException.class, () -> actualResult.findCities(5, 5));
+
+    }
+
+    @Test
+    void mapRejectsDamagedFiles() throws IOException {
+
+        //given
+        Path path = directory.resolve("words.snapshot");
+        TreeMap<Integer, List<String>> namesByLength = new TreeMap<>();
+        namesByLength.put(5, List.of("dozen"));
+        NameSnapshot.writeNames(path, 1, 0, namesByLength);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 10]++;
+        Path corrupted = Files.write(directory.resolve("corrupted.snapshot"), bytes);
+        Path notSnapshot = Files.writeString(directory.resolve("other.snapshot"), "dozen,zendo");
+        //then
+        assertThrows(IOException.class, () -> NameSnapshot.map(corrupted));
+        assertThrows(IOException.class, () -> NameSnapshot.map(notSnapshot));
+        assertThrows(IOException.class, () -> NameSnapshot.map(directory.resolve("missing.snapshot")));
+
+    }
+
+    @Test
+    void mapRejectsChangedHeaders() throws IOException {
+
+        //given
+        Path path = directory.resolve("words.snapshot");
+        TreeMap<Integer, List<String>> namesByLength = new TreeMap<>();
+        namesByLength.put(5, List.of("dozen"));
+        NameSnapshot.writeNames(path, 1, 0, namesByLength);
+        byte[] bytes = Files.readAllBytes(path);
+        //The data version is changed, so the stale snapshot would be taken as current
+        ByteBuffer changedVersion = ByteBuffer.wrap(bytes.clone()).putLong(8, 2);
+        //Header and offsets are inconsistent, with a checksum computed over them. The file ends with the positions of
+        //the rows of lengths 0 to 6: the header size up to length 5, and the end of "dozen" for length 6
+        ByteBuffer hugeMaxLength = withChecksum(ByteBuffer.wrap(bytes.clone()).putInt(32, Integer.MAX_VALUE - 1));
+        ByteBuffer rowsBeforeHeader = withChecksum(ByteBuffer.wrap(bytes.clone()).putInt(bytes.length - 28, 0));
+        ByteBuffer rowsNotSorted = withChecksum(ByteBuffer.wrap(bytes.clone()).putInt(bytes.length - 12, 47));
+        //then
+        assertThrows(IOException.class, () -> NameSnapshot.map(write("version.snapshot", changedVersion)));
+        assertThrows(IOException.class, () -> NameSnapshot.map(write("length.snapshot", hugeMaxLength)));
+        assertThrows(IOException.class, () -> NameSnapshot.map(write("header.snapshot", rowsBeforeHeader)));
+        assertThrows(IOException.class, () -> NameSnapshot.map(write("sorted.snapshot", rowsNotSorted)));
+        assertEquals(List.of("dozen"), NameSnapshot.map(write("same.snapshot", withChecksum(ByteBuffer.wrap(bytes))))
+                .findNames(5, 5));
+
+    }
+
+    private Path write(String fileName, ByteBuffer bytes) throws IOException {
+        return Files.write(directory.resolve(fileName), bytes.array());
+    }
+
+    private static ByteBuffer withChecksum(ByteBuffer bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes.array(), 40, bytes.capacity() - 40);
+        crc.update(bytes.array(), 8, 28);
+        return bytes.putInt(36, (int) crc.getValue());
+    }
+
+}
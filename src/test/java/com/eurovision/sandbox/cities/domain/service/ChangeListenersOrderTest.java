@@ -0,0 +1,173 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.event.WordsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListenerFactory;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Order of the listeners run once a change to cities or words commits: the cached data versions are discarded last,
+ * so a new version is never served with data derived from the previous one
+ */
+@SpringJUnitConfig
+class ChangeListenersOrderTest {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DataVersionServiceImpl dataVersionService;
+
+    @Autowired
+    private DictionaryServiceImpl dictionaryService;
+
+    @Autowired
+    private PermutationScoreServiceImpl permutationScoreService;
+
+    @Autowired
+    private CityNameIndexServiceImpl cityNameIndexService;
+
+    @Autowired
+    private CitySuggestionServiceImpl citySuggestionService;
+
+    @Autowired
+    private CityCountServiceImpl cityCountService;
+
+    @Autowired
+    private CityServiceImpl cityService;
+
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+
+    @BeforeEach
+    void setUp() {
+        reset(dataVersionService, dictionaryService, permutationScoreService, cityNameIndexService,
+                citySuggestionService, cityCountService, cityService);
+    }
+
+    @Test
+    void versionsAreDiscardedAfterRefreshingCities() {
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(
+                new CitiesChangedEvent(Set.of(1))));
+        //then
+        InOrder inOrder = inOrder(permutationScoreService, dataVersionService);
+        inOrder.verify(permutationScoreService).onCitiesChanged(any());
+        inOrder.verify(dataVersionService).onCitiesChanged(any());
+        inOrder = inOrder(cityNameIndexService, dataVersionService);
+        inOrder.verify(cityNameIndexService).onCitiesChanged(any());
+        inOrder.verify(dataVersionService).onCitiesChanged(any());
+        inOrder = inOrder(citySuggestionService, dataVersionService);
+        inOrder.verify(citySuggestionService).onCitiesChanged(any());
+        inOrder.verify(dataVersionService).onCitiesChanged(any());
+        inOrder = inOrder(cityCountService, dataVersionService);
+        inOrder.verify(cityCountService).onCitiesChanged(any());
+        inOrder.verify(dataVersionService).onCitiesChanged(any());
+        inOrder = inOrder(cityService, dataVersionService);
+        inOrder.verify(cityService).onCitiesChanged(any());
+        inOrder.verify(dataVersionService).onCitiesChanged(any());
+
+    }
+
+    @Test
+    void versionsAreDiscardedAfterRefreshingWords() {
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(
+                new WordsChangedEvent(Set.of("dozen"))));
+        //then
+        //Scores are recomputed with the dictionary already discarded
+        InOrder inOrder = inOrder(dictionaryService, permutationScoreService, dataVersionService);
+        inOrder.verify(dictionaryService).onWordsChanged(any());
+        inOrder.verify(permutationScoreService).onWordsChanged(any());
+        inOrder.verify(dataVersionService).onWordsChanged(any());
+
+    }
+
+    @Configuration
+    static class Config {
+
+        //Registered by @EnableTransactionManagement in the application, it runs listeners once the transaction commits
+        @Bean
+        static TransactionalEventListenerFactory transactionalEventListenerFactory() {
+            return new TransactionalEventListenerFactory();
+        }
+
+        @Bean
+        DataVersionServiceImpl dataVersionService() {
+            return mock(DataVersionServiceImpl.class);
+        }
+
+        @Bean
+        DictionaryServiceImpl dictionaryService() {
+            return mock(DictionaryServiceImpl.class);
+        }
+
+        @Bean
+        PermutationScoreServiceImpl permutationScoreService() {
+            return mock(PermutationScoreServiceImpl.class);
+        }
+
+        @Bean
+        CityNameIndexServiceImpl cityNameIndexService() {
+            return mock(CityNameIndexServiceImpl.class);
+        }
+
+        @Bean
+        CitySuggestionServiceImpl citySuggestionService() {
+            return mock(CitySuggestionServiceImpl.class);
+        }
+
+        @Bean
+        CityCountServiceImpl cityCountService() {
+            return mock(CityCountServiceImpl.class);
+        }
+
+        @Bean
+        CityServiceImpl cityService() {
+            return mock(CityServiceImpl.class);
+        }
+
+    }
+
+    /**
+     * Transaction manager without resources, enough to run the listeners bound to the commit
+     */
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CityCountServiceImplTest {
+
+    @Mock
+    private CitiesRepository citiesRepository;
+
+    CityCountServiceImpl classToTest;
+
+    @BeforeEach
+    void setUp() {
+        classToTest = new CityCountServiceImpl(citiesRepository, new SimpleMeterRegistry(), Duration.ofMinutes(1),
+                false);
+    }
+
+    @Test
+    void countCitiesCountsOnceUntilCitiesChange() {
+
+        //given
+        when(citiesRepository.count()).thenReturn(10L).thenReturn(11L);
+        assertEquals(10, classToTest.countCities());
+        assertEquals(10, classToTest.countCities());
+        //when
+        classToTest.onCitiesChanged(new CitiesChangedEvent(Set.of(11)));
+        //then
+        assertEquals(11, classToTest.countCities());
+        verify(citiesRepository, times(2)).count();
+
+    }
+
+    @Test
+    void countCitiesDoesNotKeepCountTakenBeforeInvalidation() {
+
+        //given
+        //Cities change and commit while the first count runs, so that count may have missed the change
+        when(citiesRepository.count())
+                .thenAnswer(invocation -> {
+                    classToTest.onCitiesChanged(new CitiesChangedEvent(Set.of(11)));
+                    return 10L;
+                })
+                .thenReturn(11L);
+        //when
+        long actualResult = classToTest.countCities();
+        //then
+        assertEquals(10, actualResult);
+        assertEquals(11, classToTest.countCities());
+        assertEquals(11, classToTest.countCities());
+        verify(citiesRepository, times(2)).count();
+
+    }
+
+}
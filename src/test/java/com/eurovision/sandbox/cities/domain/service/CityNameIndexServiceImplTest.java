@@ -0,0 +1,91 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.NameSnapshotService;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.NormalizedCity;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CityNameIndexServiceImplTest {
+
+    @Mock
+    private CitiesRepository citiesRepository;
+
+    @Mock
+    private NameSnapshotService nameSnapshotService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    CityNameIndexServiceImpl classToTest;
+
+    @BeforeEach
+    void setUp() {
+        classToTest = new CityNameIndexServiceImpl(citiesRepository, nameSnapshotService, meterRegistry);
+    }
+
+    @Test
+    void findCitiesWithLength() {
+
+        //given
+        when(citiesRepository.findCitiesWithLengthBetween(8, 8)).thenReturn(List.of(
+                buildModel(2, "São Paulo"),
+                buildModel(5, "Lausanne")
+        ));
+        when(citiesRepository.findCitiesWithLengthBetween(6, 6)).thenReturn(List.of(buildModel(1, "Zürich")));
+        //when
+        List<NormalizedCity> actualResult = classToTest.findCitiesWithLength(8);
+        //then
+        assertEquals(List.of(
+                NormalizedCity.builder().city(buildModel(2, "São Paulo")).normalizedName("saopaulo").build(),
+                NormalizedCity.builder().city(buildModel(5, "Lausanne")).normalizedName("lausanne").build()
+        ), actualResult);
+        assertEquals(List.of("zurich"), classToTest.findCitiesWithLength(6).stream()
+                .map(NormalizedCity::getNormalizedName)
+                .toList());
+        //Each length is read once
+        assertEquals(actualResult, classToTest.findCitiesWithLength(8));
+        verify(citiesRepository, times(1)).findCitiesWithLengthBetween(8, 8);
+        assertEquals(2, meterRegistry.get("cities.cache.gets").tag("result", "miss").counter().count());
+        assertEquals(1, meterRegistry.get("cities.cache.gets").tag("result", "hit").counter().count());
+        assertEquals(2, meterRegistry.get("cities.names.load").timer().count());
+
+    }
+
+    @Test
+    void onCitiesChangedReloadsNames() {
+
+        //given
+        when(citiesRepository.findCitiesWithLengthBetween(4, 4))
+                .thenReturn(List.of(buildModel(1, "Bern")))
+                .thenReturn(List.of());
+        assertEquals(1, classToTest.findCitiesWithLength(4).size());
+        //when
+        classToTest.onCitiesChanged(new CitiesChangedEvent(Set.of(1)));
+        //then
+        assertTrue(classToTest.findCitiesWithLength(4).isEmpty());
+        verify(citiesRepository, times(2)).findCitiesWithLengthBetween(4, 4);
+
+    }
+
+    private City buildModel(int id, String name) {
+        return City.builder()
+                .id(id)
+                .name(name)
+                .build();
+    }
+
+}
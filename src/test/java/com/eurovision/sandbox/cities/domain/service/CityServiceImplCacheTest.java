@@ -0,0 +1,133 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.CityCountService;
+import com.eurovision.sandbox.cities.domain.component.CityNameIndexService;
+import com.eurovision.sandbox.cities.domain.component.DataVersionService;
+import com.eurovision.sandbox.cities.domain.component.DictionaryService;
+import com.eurovision.sandbox.cities.domain.component.PermutationScoreService;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.DataVersion;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Caching of the pages of cities in alphabetical order, through the proxy Spring builds around CityServiceImpl
+ */
+@SpringJUnitConfig
+class CityServiceImplCacheTest {
+
+    @Autowired
+    private CityServiceImpl classToTest;
+
+    @Autowired
+    private CitiesRepository citiesRepository;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        reset(citiesRepository, dataVersionService);
+        cacheManager.getCache(CityServiceImpl.CITY_PAGES_CACHE).clear();
+        when(citiesRepository.findCitySliceOrderedByName(any())).thenReturn(new SliceImpl<>(List.of(
+                new City(1, "Bern"))));
+        when(dataVersionService.findCitiesVersion()).thenReturn(version("W/\"c1\""));
+    }
+
+    @Test
+    void findCitiesInAlphabeticalOrderAscendantIsCached() {
+
+        //when
+        classToTest.findCitiesInAlphabeticalOrderAscendant(1, 10);
+        classToTest.findCitiesInAlphabeticalOrderAscendant(1, 10);
+        classToTest.findCitiesInAlphabeticalOrderAscendant(1, 5);
+        //then
+        verify(citiesRepository, times(2)).findCitySliceOrderedByName(any());
+
+    }
+
+    @Test
+    void onCitiesChangedEvictsPages() {
+
+        //given
+        classToTest.findCitiesInAlphabeticalOrderAscendant(1, 10);
+        //when
+        classToTest.onCitiesChanged(new CitiesChangedEvent(Set.of(2)));
+        classToTest.findCitiesInAlphabeticalOrderAscendant(1, 10);
+        //then
+        verify(citiesRepository, times(2)).findCitySliceOrderedByName(any());
+
+    }
+
+    @Test
+    void pagesOfAnotherVersionAreNotServed() {
+
+        //given
+        //A page read before a change commits may be cached after the eviction, with the version it was read at
+        classToTest.findCitiesInAlphabeticalOrderAscendant(1, 10);
+        when(dataVersionService.findCitiesVersion()).thenReturn(version("W/\"c2\""));
+        //when
+        classToTest.findCitiesInAlphabeticalOrderAscendant(1, 10);
+        //then
+        verify(citiesRepository, times(2)).findCitySliceOrderedByName(any());
+
+    }
+
+    private static DataVersion version(String eTag) {
+        return DataVersion.builder().eTag(eTag).lastModified(-1).build();
+    }
+
+    @Configuration
+    //Proxies the class, to reach the listener that evicts pages
+    @EnableCaching(proxyTargetClass = true)
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(CityServiceImpl.CITY_PAGES_CACHE);
+        }
+
+        @Bean
+        CitiesRepository citiesRepository() {
+            return mock(CitiesRepository.class);
+        }
+
+        //Named as the bean of DataVersionServiceImpl, referenced by the cache key
+        @Bean
+        DataVersionService dataVersionServiceImpl() {
+            return mock(DataVersionService.class);
+        }
+
+        @Bean
+        CityServiceImpl cityService(CitiesRepository citiesRepository) {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            return new CityServiceImpl(citiesRepository, mock(CityCountService.class),
+                    mock(CityNameIndexService.class), mock(DictionaryService.class),
+                    mock(PermutationScoreService.class), new CityPermutationsScorer(new ForkJoinPool(1), meterRegistry),
+                    meterRegistry);
+        }
+
+    }
+
+}
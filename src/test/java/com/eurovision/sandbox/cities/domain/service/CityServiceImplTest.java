@@ -1,24 +1,42 @@
 package com.eurovision.sandbox.cities.domain.service;
 
+import com.eurovision.sandbox.cities.domain.component.CityCountService;
+import com.eurovision.sandbox.cities.domain.component.CityNameIndexService;
+import com.eurovision.sandbox.cities.domain.component.DictionaryService;
+import com.eurovision.sandbox.cities.domain.component.PermutationScoreService;
 import com.eurovision.sandbox.cities.domain.exception.BadRequestException;
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
 import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.CityPermutations;
+import com.eurovision.sandbox.cities.domain.model.NormalizedCity;
+import com.eurovision.sandbox.cities.dto.CursorPaginatedResponseDto;
 import com.eurovision.sandbox.cities.dto.PaginatedResponseDto;
 import com.eurovision.sandbox.cities.dto.PermutableCityResponseDto;
-import com.eurovision.sandbox.cities.infrastructure.db.entity.CityEntity;
 import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
-import com.eurovision.sandbox.cities.infrastructure.db.repository.WordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,11 +46,28 @@ class CityServiceImplTest {
     private CitiesRepository citiesRepository;
 
     @Mock
-    private WordRepository wordRepository;
+    private CityCountService cityCountService;
+
+    @Mock
+    private CityNameIndexService cityNameIndexService;
+
+    @Mock
+    private DictionaryService dictionaryService;
+
+    @Mock
+    private PermutationScoreService permutationScoreService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
-    @InjectMocks
     CityServiceImpl classToTest;
 
+    @BeforeEach
+    void setUp() {
+        classToTest = new CityServiceImpl(citiesRepository, cityCountService, cityNameIndexService, dictionaryService,
+                permutationScoreService, new CityPermutationsScorer(new ForkJoinPool(4), meterRegistry),
+                meterRegistry);
+    }
+
     @Test
     void findCitiesWithParams() {
 
@@ -49,7 +84,7 @@ class CityServiceImplTest {
                         buildModel(3, "third city")
                         ))
                 .build();
-        when(citiesRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(mockedDbCitiesResult));
+        when(citiesRepository.findCityPage(any(Pageable.class))).thenReturn(new PageImpl<>(mockedDbCitiesModels));
         //when
         PaginatedResponseDto actualResult = classToTest.findCitiesWithParams(1, 3);
 
@@ -83,7 +118,7 @@ class CityServiceImplTest {
         //given
         BadRequestException expectedResponse =
                 BadRequestException.of("Not enough pages", "Query results can show up to 1 pages");
-        when(citiesRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(mockedDbCitiesResult));
+        when(citiesRepository.findCityPage(any(Pageable.class))).thenReturn(new PageImpl<>(mockedDbCitiesModels));
         //then
         BadRequestException actualResponse = assertThrows(BadRequestException.class,
                 () -> classToTest.findCitiesWithParams(3, 3));
@@ -125,7 +160,7 @@ class CityServiceImplTest {
                         buildModel(3, "third city")
                 ))
                 .build();
-        when(citiesRepository.findAllByOrderByNameAsc(any(Pageable.class))).thenReturn(new PageImpl<>(mockedDbCitiesResult));
+        when(citiesRepository.findCitySliceOrderedByName(any(Pageable.class))).thenReturn(new PageImpl<>(mockedDbCitiesModels));
         //when
         PaginatedResponseDto actualResult = classToTest.findCitiesInAlphabeticalOrderAscendant(1, 3);
 
@@ -139,6 +174,99 @@ class CityServiceImplTest {
 
     }
 
+    @Test
+    void findCitiesInAlphabeticalOrderAscendantWithCachedCount() {
+
+        //given
+        when(citiesRepository.findCitySliceOrderedByName(any(Pageable.class))).thenReturn(
+                new SliceImpl<>(mockedDbCitiesModels.subList(0, 2), PageRequest.of(0, 2), true));
+        when(cityCountService.countCities()).thenReturn(3L);
+        //when
+        PaginatedResponseDto actualResult = classToTest.findCitiesInAlphabeticalOrderAscendant(1, 2);
+
+        //then
+        assertEquals(1, actualResult.getNumber());
+        assertFalse(actualResult.isLast());
+        assertEquals(2, actualResult.getTotalPages());
+        assertEquals(3L, actualResult.getTotalElements());
+        verify(citiesRepository, never()).count();
+
+    }
+
+    @Test
+    void failedValidationForPageExcessNumberWithCachedCount() {
+        //given
+        BadRequestException expectedResponse =
+                BadRequestException.of("Not enough pages", "Query results can show up to 2 pages");
+        when(citiesRepository.findCitySliceOrderedByName(any(Pageable.class))).thenReturn(
+                new SliceImpl<>(List.of(), PageRequest.of(2, 2), false));
+        when(cityCountService.countCities()).thenReturn(3L);
+        //then
+        BadRequestException actualResponse = assertThrows(BadRequestException.class,
+                () -> classToTest.findCitiesInAlphabeticalOrderAscendant(3, 2));
+        assertEquals(expectedResponse.getHttpStatus(), actualResponse.getHttpStatus());
+        assertEquals(expectedResponse.getTitleMessageCode(), actualResponse.getTitleMessageCode());
+        assertEquals(expectedResponse.getTypeMessageCode(), actualResponse.getTypeMessageCode());
+        assertEquals(expectedResponse.getMessage(), actualResponse.getMessage());
+
+    }
+
+    @Test
+    void findCitiesInAlphabeticalOrderAfterCursor() {
+
+        //given
+        when(citiesRepository.findFirstCitiesOrderedByNameAndId(any(Pageable.class)))
+                .thenReturn(mockedDbCitiesModels);
+        when(citiesRepository.findCitiesOrderedByNameAndIdAfter(eq("second city"), eq(2), any(Pageable.class)))
+                .thenReturn(List.of(buildModel(3, "third city")));
+        //when
+        CursorPaginatedResponseDto firstPage = classToTest.findCitiesInAlphabeticalOrderAfter(null, 2, false);
+        CursorPaginatedResponseDto secondPage =
+                classToTest.findCitiesInAlphabeticalOrderAfter(firstPage.getNext(), 2, true);
+
+        //then
+        assertEquals(List.of(buildModel(1, "first city"), buildModel(2, "second city")), firstPage.getContent());
+        assertFalse(firstPage.isLast());
+        assertNull(firstPage.getTotalElements());
+        assertEquals(List.of(buildModel(3, "third city")), secondPage.getContent());
+        assertTrue(secondPage.isLast());
+        assertNull(secondPage.getNext());
+        assertEquals(0L, secondPage.getTotalElements());
+
+    }
+
+    @Test
+    void failedValidationForCursor() {
+        //given
+        BadRequestException expectedResponse =
+                BadRequestException.of("Invalid cursor", "Cursor must be the next token of a previous page");
+        //then
+        BadRequestException actualResponse = assertThrows(BadRequestException.class,
+                () -> classToTest.findCitiesInAlphabeticalOrderAfter("bm90LWEtY3Vyc29y", 2, false));
+        assertEquals(expectedResponse.getHttpStatus(), actualResponse.getHttpStatus());
+        assertEquals(expectedResponse.getTitleMessageCode(), actualResponse.getTitleMessageCode());
+        assertEquals(expectedResponse.getTypeMessageCode(), actualResponse.getTypeMessageCode());
+        assertEquals(expectedResponse.getMessage(), actualResponse.getMessage());
+
+    }
+
+    @Test
+    void forEachCityInAlphabeticalOrder() {
+
+        //given
+        when(citiesRepository.streamAllOrderedByNameAndId()).thenReturn(mockedDbCitiesModels.stream());
+        List<City> actualResult = new ArrayList<>();
+        //when
+        classToTest.forEachCityInAlphabeticalOrder(actualResult::add);
+        //then
+        assertEquals(List.of(
+                buildModel(1, "first city"),
+                buildModel(2, "second city"),
+                buildModel(3, "third city")
+        ), actualResult);
+
+    }
+
     @Test
     void findMostPermutableCity() {
 
@@ -147,14 +275,16 @@ class CityServiceImplTest {
                 .wordsInDictionary(List.of("brede", "breed", "reebd", "dereb", "breded", "breede", "bdeeer", "beerded"))
                 .city(buildModel(3, "deerbed"))
                 .build();
-        when(citiesRepository.findCitiesWithSevenLetters()).thenReturn(List.of(
-                buildEntity(1, "elitted"),
-                buildEntity(2, "denzost"),
-                buildEntity(3, "deerbed")
+        when(cityNameIndexService.findCitiesWithLength(7)).thenReturn(List.of(
+                buildNormalized(1, "elitted"),
+                buildNormalized(2, "denzost"),
+                buildNormalized(3, "deerbed")
         ));
-        when(wordRepository.findNumberedLetteredWords(5)).thenReturn(mockedDbFiveLetterWords);
-        when(wordRepository.findNumberedLetteredWords(6)).thenReturn(mockedDbSixLetterWords);
-        when(wordRepository.findNumberedLetteredWords(7)).thenReturn(mockedDbSevenLetterWords);
+        List<String> dictionaryWords = new ArrayList<>();
+        dictionaryWords.addAll(mockedDbFiveLetterWords);
+        dictionaryWords.addAll(mockedDbSixLetterWords);
+        dictionaryWords.addAll(mockedDbSevenLetterWords);
+        when(dictionaryService.findDictionary(5, 7)).thenReturn(AnagramIndex.of(dictionaryWords));
         //when
         PermutableCityResponseDto actualResult = classToTest.findMostPermutableCity();
         //then
@@ -165,6 +295,166 @@ class CityServiceImplTest {
 
     }
 
+    @Test
+    void findMostPermutableCityFromScores() {
+
+        //given
+        CityPermutations storedResult = CityPermutations.builder()
+                .city(buildModel(3, "deerbed"))
+                .words(List.of("brede", "breed"))
+                .build();
+        when(permutationScoreService.findMostPermutableCity()).thenReturn(Optional.of(storedResult));
+        //when
+        PermutableCityResponseDto actualResult = classToTest.findMostPermutableCity();
+        //then
+        assertEquals(storedResult.getCity(), actualResult.getCity());
+        assertEquals(storedResult.getWords(), actualResult.getWordsInDictionary());
+        verifyNoInteractions(citiesRepository, cityNameIndexService, dictionaryService);
+
+    }
+
+    @Test
+    void findMostPermutableCityWithLengths() {
+
+        //given
+        PermutableCityResponseDto expectedResult = PermutableCityResponseDto.builder()
+                .wordsInDictionary(List.of("dozen", "zendo", "dozens", "sozend", "zosendt"))
+                .city(buildModel(2, "denzost"))
+                .build();
+        when(cityNameIndexService.findCitiesWithLength(7)).thenReturn(List.of(
+                buildNormalized(1, "elitted"),
+                buildNormalized(2, "denzost"),
+                buildNormalized(3, "deerbed")
+        ));
+        when(dictionaryService.findDictionary(5, 7)).thenReturn(AnagramIndex.of(mockedDbWordsWithZ));
+        //when
+        PermutableCityResponseDto actualResult = classToTest.findMostPermutableCity(5, 10, 7);
+        //then
+        assertEquals(expectedResult.getCity(), actualResult.getCity());
+        assertEquals(expectedResult.getWordsInDictionary(), actualResult.getWordsInDictionary());
+
+    }
+
+    @Test
+    void findMostPermutableCityKeepsFirstCityOnTies() {
+
+        //given
+        List<NormalizedCity> cities = new ArrayList<>();
+        for (int id = 1; id <= 500; id++) {
+            cities.add(buildNormalized(id, id % 2 == 0 ? "denzost" : "elitted"));
+        }
+        when(cityNameIndexService.findCitiesWithLength(7)).thenReturn(cities);
+        when(dictionaryService.findDictionary(5, 7)).thenReturn(AnagramIndex.of(List.of("dozen", "lited", "tilted")));
+        //when
+        PermutableCityResponseDto actualResult = classToTest.findMostPermutableCity(5, 7, 7);
+        //then
+        assertEquals(buildModel(1, "elitted"), actualResult.getCity());
+        assertEquals(List.of("lited", "tilted"), actualResult.getWordsInDictionary());
+
+    }
+
+    @Test
+    void findMostPermutableCityWithNormalizedNames() {
+
+        //given
+        when(cityNameIndexService.findCitiesWithLength(7)).thenReturn(List.of(
+                NormalizedCity.builder().city(buildModel(1, "Dén Zost")).normalizedName("denzost").build()
+        ));
+        when(dictionaryService.findDictionary(5, 7)).thenReturn(AnagramIndex.of(List.of("Zéndo", "do-zen", "dozens'")));
+        //when
+        PermutableCityResponseDto actualResult = classToTest.findMostPermutableCity(5, 7, 7);
+        //then
+        assertEquals(buildModel(1, "Dén Zost"), actualResult.getCity());
+        assertEquals(List.of("dozen", "zendo", "dozens"), actualResult.getWordsInDictionary());
+
+    }
+
+    @Test
+    void findMostPermutableCities() {
+
+        //given
+        List<NormalizedCity> cities = new ArrayList<>();
+        for (int id = 1; id <= 500; id++) {
+            cities.add(buildNormalized(id, id % 3 == 0 ? "deerbed" : id % 3 == 1 ? "denzost" : "aaaaaaa"));
+        }
+        when(cityNameIndexService.findCitiesWithLength(7)).thenReturn(cities);
+        when(dictionaryService.findDictionary(5, 6)).thenReturn(AnagramIndex.of(List.of("brede", "breed", "dozen")));
+        //when
+        List<PermutableCityResponseDto> actualResult = classToTest.findMostPermutableCities(5, 6, 7, 4);
+        //then
+        assertEquals(List.of(buildModel(3, "deerbed"), buildModel(6, "deerbed"), buildModel(9, "deerbed"),
+                        buildModel(12, "deerbed")),
+                actualResult.stream().map(PermutableCityResponseDto::getCity).collect(Collectors.toList()));
+        assertEquals(List.of("brede", "breed"), actualResult.get(0).getWordsInDictionary());
+        verifyNoInteractions(permutationScoreService);
+
+    }
+
+    @Test
+    void findMostPermutableCitiesLeavesOutCitiesWithoutWords() {
+
+        //given
+        when(cityNameIndexService.findCitiesWithLength(7)).thenReturn(List.of(
+                buildNormalized(1, "aaaaaaa"),
+                buildNormalized(2, "denzost"),
+                buildNormalized(3, "deerbed")
+        ));
+        when(dictionaryService.findDictionary(5, 7)).thenReturn(AnagramIndex.of(mockedDbFiveLetterWords));
+        //when
+        List<PermutableCityResponseDto> actualResult = classToTest.findMostPermutableCities(5, 7, 7, 10);
+        //then
+        assertEquals(List.of(buildModel(3, "deerbed"), buildModel(2, "denzost")),
+                actualResult.stream().map(PermutableCityResponseDto::getCity).collect(Collectors.toList()));
+        verify(permutationScoreService).findMostPermutableCities(10);
+
+    }
+
+    @Test
+    void findMostPermutableCitiesFromScores() {
+
+        //given
+        List<CityPermutations> storedResult = List.of(
+                CityPermutations.builder().city(buildModel(3, "deerbed")).words(List.of("brede", "breed")).build(),
+                CityPermutations.builder().city(buildModel(2, "denzost")).words(List.of("dozen")).build()
+        );
+        when(permutationScoreService.findMostPermutableCities(2)).thenReturn(storedResult);
+        //when
+        List<PermutableCityResponseDto> actualResult = classToTest.findMostPermutableCities(5, 7, 7, 2);
+        //then
+        assertEquals(List.of(buildModel(3, "deerbed"), buildModel(2, "denzost")),
+                actualResult.stream().map(PermutableCityResponseDto::getCity).collect(Collectors.toList()));
+        verifyNoInteractions(citiesRepository, cityNameIndexService, dictionaryService);
+
+    }
+
+    @Test
+    void failedValidationForRankingSize() {
+        //then
+        assertThrows(BadRequestException.class, () -> classToTest.findMostPermutableCities(5, 7, 7, 0));
+        assertThrows(BadRequestException.class, () -> classToTest.findMostPermutableCities(5, 7, 7,
+                CityServiceImpl.MAX_RANKING_SIZE + 1));
+        verifyNoInteractions(permutationScoreService, cityNameIndexService, dictionaryService);
+    }
+
+    @Test
+    void failedValidationForWordLengths() {
+        //given
+        BadRequestException expectedResponse = BadRequestException.of(
+                "Maximum word length must not be less than minimum word length", "Word length range is empty");
+        //then
+        BadRequestException actualResponse = assertThrows(BadRequestException.class,
+                () -> classToTest.findMostPermutableCity(6, 5, 7));
+        assertEquals(expectedResponse.getHttpStatus(), actualResponse.getHttpStatus());
+        assertEquals(expectedResponse.getTitleMessageCode(), actualResponse.getTitleMessageCode());
+        assertEquals(expectedResponse.getTypeMessageCode(), actualResponse.getTypeMessageCode());
+        assertEquals(expectedResponse.getMessage(), actualResponse.getMessage());
+
+    }
+
+    private final List<String> mockedDbWordsWithZ = List.of(
+            "dozen", "zendo", "dozed", "dozens", "sozend", "zosendt", "tilted"
+    );
+
     private final List<String> mockedDbFiveLetterWords = List.of(
             "brede", "breed", "reebd", "dereb", "dozen", "zendo", "dozed", "lited"
     );
@@ -177,16 +467,16 @@ class CityServiceImplTest {
             "beerded", "zosendt", "delitte"
     );
 
-    private final List<CityEntity> mockedDbCitiesResult = List.of(
-            buildEntity(1, "first city"),
-            buildEntity(2, "second city"),
-            buildEntity(3, "third city")
+    private final List<City> mockedDbCitiesModels = List.of(
+            buildModel(1, "first city"),
+            buildModel(2, "second city"),
+            buildModel(3, "third city")
     );
 
-    private CityEntity buildEntity(int id, String name) {
-        return CityEntity.builder()
-                .id(id)
-                .name(name)
+    private NormalizedCity buildNormalized(int id, String name) {
+        return NormalizedCity.builder()
+                .city(buildModel(id, name))
+                .normalizedName(name)
                 .build();
     }
 
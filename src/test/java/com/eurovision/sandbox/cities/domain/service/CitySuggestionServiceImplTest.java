@@ -0,0 +1,85 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.NameSnapshotService;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.exception.BadRequestException;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CitySuggestionServiceImplTest {
+
+    @Mock
+    private CitiesRepository citiesRepository;
+
+    @Mock
+    private NameSnapshotService nameSnapshotService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    CitySuggestionServiceImpl classToTest;
+
+    @BeforeEach
+    void setUp() {
+        classToTest = new CitySuggestionServiceImpl(citiesRepository, nameSnapshotService, transactionManager,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void suggestCitiesReadsCitiesOnce() {
+
+        //given
+        when(citiesRepository.streamAllOrderedByNameAndId()).thenReturn(Stream.of(
+                new City(3, "Sankt Gallen"),
+                new City(1, "Santiago"),
+                new City(2, "São Paulo")
+        ));
+        //when
+        List<City> actualResult = classToTest.suggestCities("San", 10);
+        //then
+        assertEquals(List.of(new City(3, "Sankt Gallen"), new City(1, "Santiago")), actualResult);
+        assertEquals(List.of(new City(2, "São Paulo")), classToTest.suggestCities("são-p", 10));
+        verify(citiesRepository, times(1)).streamAllOrderedByNameAndId();
+
+    }
+
+    @Test
+    void onCitiesChangedReloadsCities() {
+
+        //given
+        when(citiesRepository.streamAllOrderedByNameAndId())
+                .thenReturn(Stream.of(new City(1, "Bern")))
+                .thenReturn(Stream.of(new City(1, "Bern"), new City(2, "Berlin")));
+        assertEquals(1, classToTest.suggestCities("ber", 10).size());
+        //when
+        classToTest.onCitiesChanged(new CitiesChangedEvent(Set.of(2)));
+        //then
+        assertEquals(List.of(new City(2, "Berlin"), new City(1, "Bern")), classToTest.suggestCities("ber", 10));
+
+    }
+
+    @Test
+    void suggestCitiesWithWrongParams() {
+        assertThrows(BadRequestException.class, () -> classToTest.suggestCities(" -'", 10));
+        assertThrows(BadRequestException.class, () -> classToTest.suggestCities("ber", 0));
+        assertThrows(BadRequestException.class, () -> classToTest.suggestCities("ber",
+                CitySuggestionServiceImpl.MAX_SUGGESTIONS + 1));
+        verifyNoInteractions(citiesRepository);
+    }
+
+}
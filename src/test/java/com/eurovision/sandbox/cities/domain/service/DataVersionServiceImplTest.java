@@ -0,0 +1,113 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.event.WordsChangedEvent;
+import com.eurovision.sandbox.cities.domain.model.DataVersion;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.DataVersionRepository;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.DataVersionRepository.Version;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DataVersionServiceImplTest {
+
+    @Mock
+    private DataVersionRepository dataVersionRepository;
+
+    DataVersionServiceImpl classToTest;
+
+    @BeforeEach
+    void setUp() {
+        classToTest = new DataVersionServiceImpl(dataVersionRepository, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void findVersionsReadsCountersOnce() {
+
+        //given
+        Instant citiesModifiedAt = Instant.parse("2024-03-01T10:00:00Z");
+        Instant wordsModifiedAt = Instant.parse("2024-03-02T10:00:00Z");
+        when(dataVersionRepository.findAll()).thenReturn(Map.of(
+                DataVersionServiceImpl.CITIES, new Version(12, citiesModifiedAt),
+                DataVersionServiceImpl.WORDS, new Version(3, wordsModifiedAt)
+        ));
+        //when
+        DataVersion actualResult = classToTest.findCitiesAndWordsVersion();
+        //then
+        assertEquals(DataVersion.builder()
+                .eTag("W/\"c12-w3\"")
+                .lastModified(wordsModifiedAt.toEpochMilli())
+                .build(), actualResult);
+        assertEquals(DataVersion.builder()
+                .eTag("W/\"c12\"")
+                .lastModified(citiesModifiedAt.toEpochMilli())
+                .build(), classToTest.findCitiesVersion());
+        verify(dataVersionRepository, times(1)).findAll();
+
+    }
+
+    @Test
+    void findVersionsWithoutCounters() {
+
+        //given
+        when(dataVersionRepository.findAll()).thenReturn(Map.of());
+        //then
+        assertEquals(DataVersion.builder().eTag("W/\"w0\"").lastModified(-1).build(),
+                classToTest.findWordsVersion());
+
+    }
+
+    @Test
+    void changesIncreaseCountersAndDiscardCachedVersions() {
+
+        //given
+        when(dataVersionRepository.findAll())
+                .thenReturn(Map.of(DataVersionServiceImpl.CITIES, new Version(1, Instant.EPOCH)))
+                .thenReturn(Map.of(DataVersionServiceImpl.CITIES, new Version(2, Instant.EPOCH)));
+        assertEquals("W/\"c1\"", classToTest.findCitiesVersion().getETag());
+        //when
+        classToTest.countCitiesChange(new CitiesChangedEvent(Set.of(1)));
+        classToTest.countWordsChange(new WordsChangedEvent(Set.of("dozen")));
+        //The new version is only read once the change commits
+        assertEquals("W/\"c1\"", classToTest.findCitiesVersion().getETag());
+        classToTest.onCitiesChanged(new CitiesChangedEvent(Set.of(1)));
+        //then
+        assertEquals("W/\"c2\"", classToTest.findCitiesVersion().getETag());
+        verify(dataVersionRepository).increment(DataVersionServiceImpl.CITIES);
+        verify(dataVersionRepository).increment(DataVersionServiceImpl.WORDS);
+
+    }
+
+    @Test
+    void findVersionsDoesNotKeepVersionsReadBeforeInvalidation() {
+
+        //given
+        //Cities change and commit while the first read runs, so that read may have missed the change
+        when(dataVersionRepository.findAll())
+                .thenAnswer(invocation -> {
+                    classToTest.onCitiesChanged(new CitiesChangedEvent(Set.of(1)));
+                    return Map.of(DataVersionServiceImpl.CITIES, new Version(1, Instant.EPOCH));
+                })
+                .thenReturn(Map.of(DataVersionServiceImpl.CITIES, new Version(2, Instant.EPOCH)));
+        //when
+        DataVersion actualResult = classToTest.findCitiesVersion();
+        //then
+        assertEquals("W/\"c1\"", actualResult.getETag());
+        assertEquals("W/\"c2\"", classToTest.findCitiesVersion().getETag());
+        assertEquals("W/\"c2\"", classToTest.findCitiesVersion().getETag());
+        verify(dataVersionRepository, times(2)).findAll();
+
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.NameSnapshotService;
+import com.eurovision.sandbox.cities.domain.event.WordsChangedEvent;
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
+import com.eurovision.sandbox.cities.domain.model.DictionaryWord;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.WordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DictionaryServiceImplTest {
+
+    @Mock
+    private WordRepository wordRepository;
+
+    @Mock
+    private NameSnapshotService nameSnapshotService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    DictionaryServiceImpl classToTest;
+
+    @BeforeEach
+    void setUp() {
+        classToTest = new DictionaryServiceImpl(wordRepository, nameSnapshotService, transactionManager,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void findDictionaryReadsOnlyMissingLengths() {
+
+        //given
+        when(wordRepository.streamWordsWithLengthBetween(5, 6)).thenReturn(Stream.of(
+                word("dozens", 6),
+                word("dozen", 5),
+                word("Zéndo", 5)
+        ));
+        when(wordRepository.streamWordsWithLengthBetween(7, 7)).thenReturn(Stream.of(word("zosendt", 7)));
+        //when
+        AnagramIndex actualResult = classToTest.findDictionary(5, 6);
+        //then
+        assertEquals(List.of("dozen", "zendo", "dozens"), actualResult.findWords("denzost", 5, 7));
+        //The same range shares the index, and wider ranges only read the lengths they add
+        assertSame(actualResult, classToTest.findDictionary(5, 6));
+        assertEquals(List.of("dozens", "zosendt"), classToTest.findDictionary(6, 7).findWords("denzost", 5, 7));
+        verify(wordRepository, times(1)).streamWordsWithLengthBetween(5, 6);
+        verify(wordRepository, times(1)).streamWordsWithLengthBetween(7, 7);
+
+    }
+
+    @Test
+    void onWordsChangedReloadsWords() {
+
+        //given
+        when(wordRepository.streamWordsWithLengthBetween(5, 5))
+                .thenReturn(Stream.of(word("dozen", 5)))
+                .thenReturn(Stream.of(word("dozen", 5), word("zendo", 5)));
+        assertEquals(List.of("dozen"), classToTest.findDictionary(5, 5).findWords("denzost", 5));
+        //when
+        classToTest.onWordsChanged(new WordsChangedEvent(Set.of("zendo")));
+        //then
+        assertEquals(List.of("dozen", "zendo"), classToTest.findDictionary(5, 5).findWords("denzost", 5));
+
+    }
+
+    private DictionaryWord word(String name, int nameLength) {
+        return DictionaryWord.builder()
+                .name(name)
+                .nameLength(nameLength)
+                .build();
+    }
+
+}
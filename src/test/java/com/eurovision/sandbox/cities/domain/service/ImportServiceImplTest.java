@@ -0,0 +1,123 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.event.WordsChangedEvent;
+import com.eurovision.sandbox.cities.domain.exception.BadRequestException;
+import com.eurovision.sandbox.cities.domain.model.ImportFormat;
+import com.eurovision.sandbox.cities.domain.model.ImportedRow;
+import com.eurovision.sandbox.cities.dto.ImportResultDto;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.BulkImportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportServiceImplTest {
+
+    @Mock
+    private BulkImportRepository bulkImportRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    ImportServiceImpl classToTest;
+
+    @BeforeEach
+    void setUp() {
+        classToTest = new ImportServiceImpl(bulkImportRepository, transactionTemplate, eventPublisher,
+                new ObjectMapper(), 2);
+    }
+
+    @Test
+    void importCitiesInBatches() {
+
+        //given
+        runTransactions();
+        when(bulkImportRepository.findCityNames(List.of(1, 2))).thenReturn(Map.of(1, "Paris", 2, "Lyon"));
+        when(bulkImportRepository.findCityNames(List.of(3))).thenReturn(Map.of());
+        //when
+        ImportResultDto actualResult = classToTest.importCities(body(
+                "id,name\n1,Paris\n2,\"Lyon, \"\"la ville\"\"\"\n\n3,Nice\n"), ImportFormat.CSV);
+        //then
+        assertEquals(3, actualResult.getRows());
+        assertEquals(2, actualResult.getChangedRows());
+        assertEquals(2, actualResult.getBatches());
+        verify(bulkImportRepository).upsertCities(List.of(row(1, "Paris"), row(2, "Lyon, \"la ville\"")));
+        verify(bulkImportRepository).upsertCities(List.of(row(3, "Nice")));
+        //Unchanged cities do not refresh anything
+        verify(eventPublisher).publishEvent(new CitiesChangedEvent(Set.of(2)));
+        verify(eventPublisher).publishEvent(new CitiesChangedEvent(Set.of(3)));
+
+    }
+
+    @Test
+    void importWordsPublishesReplacedSpellings() {
+
+        //given
+        runTransactions();
+        when(bulkImportRepository.findWordNames(List.of(1, 2))).thenReturn(Map.of(1, "dozen", 2, "zendo"));
+        //when
+        ImportResultDto actualResult = classToTest.importWords(body(
+                "{\"id\":1,\"name\":\"dozen\"}\n{\"id\":2,\"name\":\"lited\"}\n"), ImportFormat.NDJSON);
+        //then
+        assertEquals(2, actualResult.getRows());
+        assertEquals(1, actualResult.getChangedRows());
+        verify(bulkImportRepository).upsertWords(List.of(row(1, "dozen"), row(2, "lited")));
+        verify(eventPublisher).publishEvent(new WordsChangedEvent(Set.of("zendo", "lited")));
+
+    }
+
+    @Test
+    void importStopsAtInvalidRow() {
+
+        //given
+        runTransactions();
+        //when
+        BadRequestException actualResponse = assertThrows(BadRequestException.class,
+                () -> classToTest.importCities(body("1,Paris\n2,Lyon\n3,Nice\nfour,Lille\n5,Metz\n"),
+                        ImportFormat.CSV));
+        //then
+        assertEquals("Line 4 is not a valid row: id is not a number. The 2 rows before it were imported",
+                actualResponse.getMessage());
+        verify(bulkImportRepository, times(1)).upsertCities(any());
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    private InputStream body(String rows) {
+        return new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ImportedRow row(int id, String name) {
+        return ImportedRow.builder()
+                .id(id)
+                .name(name)
+                .build();
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.model.ImportedRow;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.BulkImportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NameLengthServiceImplTest {
+
+    @Mock
+    private BulkImportRepository bulkImportRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    NameLengthServiceImpl classToTest;
+
+    @BeforeEach
+    void setUp() {
+        classToTest = new NameLengthServiceImpl(bulkImportRepository, transactionTemplate, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fillMissingLengthsInBatches() {
+
+        //given
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        List<ImportedRow> firstCities = List.of(row(1, "Zürich"), row(2, "São Paulo"));
+        List<ImportedRow> lastCities = List.of(row(3, "Bern"));
+        when(bulkImportRepository.findCitiesWithoutLength(2))
+                .thenReturn(firstCities)
+                .thenReturn(lastCities)
+                .thenReturn(List.of());
+        when(bulkImportRepository.findWordsWithoutLength(2)).thenReturn(List.of());
+        //when
+        long actualResult = classToTest.fillMissingLengths();
+        //then
+        assertEquals(3, actualResult);
+        verify(bulkImportRepository).updateCityLengths(firstCities);
+        verify(bulkImportRepository).updateCityLengths(lastCities);
+        verify(bulkImportRepository, never()).updateWordLengths(any());
+
+    }
+
+    private ImportedRow row(int id, String name) {
+        return ImportedRow.builder()
+                .id(id)
+                .name(name)
+                .build();
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.index.NameSnapshot;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.DictionaryWord;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.DataVersionRepository;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.DataVersionRepository.Version;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.WordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NameSnapshotServiceImplTest {
+
+    @Mock
+    private CitiesRepository citiesRepository;
+
+    @Mock
+    private WordRepository wordRepository;
+
+    @Mock
+    private DataVersionRepository dataVersionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findCitiesSnapshotIsMappedAfterRestart() {
+
+        //given
+        when(dataVersionRepository.findAll())
+                .thenReturn(Map.of("cities", new Version(2, Instant.ofEpochMilli(1_700_000_000_000L))));
+        when(citiesRepository.streamAllOrderedByNameAndId()).thenReturn(Stream.of(
+                new City(7, "Roma"),
+                new City(2, "São Paulo"),
+                new City(1, "Bern"),
+                //Four letters outside the Basic Multilingual Plane, eight chars
+                new City(9, "\uD801\uDC28\uD801\uDC29\uD801\uDC2A\uD801\uDC2B")
+        ));
+        assertTrue(newService(directory.toString()).findCitiesSnapshot().isPresent());
+        //when
+        Optional<NameSnapshot> actualResult = newService(directory.toString()).findCitiesSnapshot();
+        //then
+        assertTrue(actualResult.isPresent());
+        assertEquals(2, actualResult.get().getDataVersion());
+        assertEquals(List.of(new City(1, "Bern"), new City(7, "Roma"),
+                new City(9, "\uD801\uDC28\uD801\uDC29\uD801\uDC2A\uD801\uDC2B")), actualResult.get().findCities(4, 4));
+        assertEquals(List.of(new City(2, "São Paulo")), actualResult.get().findCities(8, 8));
+        verify(citiesRepository, times(1)).streamAllOrderedByNameAndId();
+
+    }
+
+    @Test
+    void findWordsSnapshotIsWrittenAgainWhenStale() {
+
+        //given
+        Map<String, Version> before = Map.of("words", new Version(1, Instant.ofEpochMilli(1_700_000_000_000L)));
+        Map<String, Version> after = Map.of("words", new Version(2, Instant.ofEpochMilli(1_700_000_001_000L)));
+        //Read to check the snapshot, and again while it is written
+        when(dataVersionRepository.findAll()).thenReturn(before).thenReturn(before).thenReturn(after);
+        when(wordRepository.streamWordsWithLengthBetween(0, Integer.MAX_VALUE))
+                .thenReturn(Stream.of(new DictionaryWord("dozen", 5)))
+                .thenReturn(Stream.of(new DictionaryWord("dozen", 5), new DictionaryWord("zendo", 5)));
+        NameSnapshotServiceImpl classToTest = newService(directory.toString());
+        assertEquals(List.of("dozen"), classToTest.findWordsSnapshot().orElseThrow().findNames(5, 5));
+        //when
+        Optional<NameSnapshot> actualResult = classToTest.findWordsSnapshot();
+        //then
+        //Words changed since the snapshot was mapped, and it is only written again when the application starts
+        assertTrue(actualResult.isEmpty());
+        assertEquals(List.of("dozen", "zendo"),
+                newService(directory.toString()).findWordsSnapshot().orElseThrow().findNames(5, 5));
+        verify(wordRepository, times(2)).streamWordsWithLengthBetween(0, Integer.MAX_VALUE);
+
+    }
+
+    @Test
+    void findSnapshotsWhenDisabled() {
+        NameSnapshotServiceImpl classToTest = newService("");
+        assertTrue(classToTest.findCitiesSnapshot().isEmpty());
+        assertTrue(classToTest.findWordsSnapshot().isEmpty());
+        verifyNoInteractions(citiesRepository, wordRepository, dataVersionRepository);
+    }
+
+    private NameSnapshotServiceImpl newService(String snapshotDirectory) {
+        return new NameSnapshotServiceImpl(citiesRepository, wordRepository, dataVersionRepository,
+                transactionManager, new SimpleMeterRegistry(), snapshotDirectory);
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.CityService;
+import com.eurovision.sandbox.cities.domain.component.ScoringProgress;
+import com.eurovision.sandbox.cities.domain.exception.ConflictException;
+import com.eurovision.sandbox.cities.domain.exception.DataProcessingException;
+import com.eurovision.sandbox.cities.domain.exception.NotFoundException;
+import com.eurovision.sandbox.cities.domain.exception.ServiceUnavailableException;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.PermutationJobStatus;
+import com.eurovision.sandbox.cities.dto.PermutableCityResponseDto;
+import com.eurovision.sandbox.cities.dto.PermutationJobDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PermutationJobServiceImplTest {
+
+    @Mock
+    private CityService cityService;
+
+    private ThreadPoolExecutor permutationJobExecutor;
+
+    PermutationJobServiceImpl classToTest;
+
+    @BeforeEach
+    void setUp() {
+        permutationJobExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1));
+        classToTest = new PermutationJobServiceImpl(cityService, permutationJobExecutor, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        permutationJobExecutor.shutdownNow();
+    }
+
+    @Test
+    void submitSharesJobBetweenIdenticalRequests() throws InterruptedException {
+
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        when(cityService.findMostPermutableCity(eq(5), eq(7), eq(7), any())).thenAnswer(invocation -> {
+            release.await();
+            return expectedResult;
+        });
+        //when
+        PermutationJobDto first = classToTest.submit(5, 7, 7);
+        PermutationJobDto second = classToTest.submit(5, 7, 7);
+        release.countDown();
+        PermutationJobDto finished = awaitFinished(first.getId());
+        //then
+        assertEquals(first.getId(), second.getId());
+        assertEquals(PermutationJobStatus.SUCCEEDED, finished.getStatus());
+        assertEquals(expectedResult, classToTest.findJobResult(first.getId()));
+        verify(cityService, times(1)).findMostPermutableCity(eq(5), eq(7), eq(7), any());
+
+    }
+
+    @Test
+    void submitRejectsJobsBeyondQueueCapacity() throws InterruptedException {
+
+        //given
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(cityService.findMostPermutableCity(anyInt(), anyInt(), anyInt(), any())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return expectedResult;
+        });
+        //when
+        classToTest.submit(5, 7, 7);
+        running.await();
+        //One job runs and one waits in the queue
+        classToTest.submit(5, 6, 7);
+        //then
+        try {
+            assertThrows(ServiceUnavailableException.class, () -> classToTest.submit(5, 5, 7));
+        } finally {
+            release.countDown();
+        }
+
+    }
+
+    @Test
+    void cancelStopsRunningJob() throws InterruptedException {
+
+        //given
+        CountDownLatch scoring = new CountDownLatch(1);
+        when(cityService.findMostPermutableCity(eq(5), eq(7), eq(7), any())).thenAnswer(invocation -> {
+            ScoringProgress progress = invocation.getArgument(3);
+            progress.started(Integer.MAX_VALUE);
+            while (true) {
+                progress.cityScored();
+                scoring.countDown();
+            }
+        });
+        PermutationJobDto job = classToTest.submit(5, 7, 7);
+        scoring.await();
+        //when
+        PermutationJobDto cancelled = classToTest.cancel(job.getId());
+        //then
+        assertEquals(PermutationJobStatus.CANCELLED, cancelled.getStatus());
+        assertEquals(Integer.MAX_VALUE, cancelled.getTotalCities());
+        assertTrue(cancelled.getScoredCities() > 0);
+        assertThrows(ConflictException.class, () -> classToTest.findJobResult(job.getId()));
+        //The job thread stops scoring instead of looping forever
+        permutationJobExecutor.shutdown();
+        assertTrue(permutationJobExecutor.awaitTermination(5, TimeUnit.SECONDS));
+
+    }
+
+    @Test
+    void findJobResultOfFailedJob() throws InterruptedException {
+
+        //given
+        DataProcessingException failure = DataProcessingException.of(
+                "An error occurred while calculating permutations and response was null");
+        when(cityService.findMostPermutableCity(eq(5), eq(7), eq(7), any())).thenThrow(failure);
+        //when
+        PermutationJobDto job = classToTest.submit(5, 7, 7);
+        PermutationJobDto finished = awaitFinished(job.getId());
+        //then
+        assertEquals(PermutationJobStatus.FAILED, finished.getStatus());
+        assertEquals(failure.getMessage(), finished.getError());
+        assertSame(failure, assertThrows(DataProcessingException.class,
+                () -> classToTest.findJobResult(job.getId())));
+
+    }
+
+    @Test
+    void findJobNotFoundAfterRetention() throws InterruptedException {
+
+        //given
+        classToTest = new PermutationJobServiceImpl(cityService, permutationJobExecutor, Duration.ofMillis(200));
+        when(cityService.findMostPermutableCity(eq(5), eq(7), eq(7), any())).thenReturn(expectedResult);
+        PermutationJobDto job = classToTest.submit(5, 7, 7);
+        awaitFinished(job.getId());
+        //when
+        Thread.sleep(300);
+        //then
+        //No other job is submitted, so looking it up is what removes it
+        assertThrows(NotFoundException.class, () -> classToTest.findJob(job.getId()));
+
+    }
+
+    @Test
+    void findJobNotFound() {
+        assertThrows(NotFoundException.class, () -> classToTest.findJob("not-a-job"));
+    }
+
+    private PermutationJobDto awaitFinished(String jobId) throws InterruptedException {
+        for (int attempt = 0; attempt < 500; attempt++) {
+            PermutationJobDto job = classToTest.findJob(jobId);
+            if (job.getStatus().isFinished()) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Job did not finish");
+    }
+
+    private final PermutableCityResponseDto expectedResult = PermutableCityResponseDto.builder()
+            .city(City.builder()
+                    .id(2)
+                    .name("denzost")
+                    .build())
+            .wordsInDictionary(List.of("dozen", "zendo"))
+            .build();
+
+}
@@ -0,0 +1,134 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.CityNameIndexService;
+import com.eurovision.sandbox.cities.domain.component.DictionaryService;
+import com.eurovision.sandbox.cities.domain.event.CitiesChangedEvent;
+import com.eurovision.sandbox.cities.domain.event.WordsChangedEvent;
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
+import com.eurovision.sandbox.cities.domain.model.City;
+import com.eurovision.sandbox.cities.domain.model.NormalizedCity;
+import com.eurovision.sandbox.cities.infrastructure.db.entity.CityEntity;
+import com.eurovision.sandbox.cities.infrastructure.db.entity.CityPermutationScoreEntity;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CitiesRepository;
+import com.eurovision.sandbox.cities.infrastructure.db.repository.CityPermutationScoreRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PermutationScoreServiceImplTest {
+
+    @Mock
+    private CitiesRepository citiesRepository;
+
+    @Mock
+    private CityNameIndexService cityNameIndexService;
+
+    @Mock
+    private DictionaryService dictionaryService;
+
+    @Mock
+    private CityPermutationScoreRepository cityPermutationScoreRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    PermutationScoreServiceImpl classToTest;
+
+    @BeforeEach
+    void setUp() {
+        classToTest = new PermutationScoreServiceImpl(citiesRepository, cityNameIndexService, dictionaryService,
+                cityPermutationScoreRepository,
+                new CityPermutationsScorer(new ForkJoinPool(2), new SimpleMeterRegistry()), transactionTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onWordsChangedRescoresAffectedCities() {
+
+        //given
+        when(cityNameIndexService.findCitiesWithLength(7)).thenReturn(List.of(
+                buildNormalized(1, "elitted"),
+                buildNormalized(2, "denzost")
+        ));
+        when(dictionaryService.findDictionary(5, 7)).thenReturn(AnagramIndex.of(List.of("dozen", "zendo", "lited")));
+        //when
+        classToTest.onWordsChanged(new WordsChangedEvent(Set.of("zendo")));
+        //then
+        ArgumentCaptor<List<CityPermutationScoreEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(cityPermutationScoreRepository).saveAll(captor.capture());
+        assertEquals(List.of(CityPermutationScoreEntity.builder()
+                .cityId(2)
+                .cityName("denzost")
+                .wordCount(2)
+                .words(List.of("dozen", "zendo"))
+                .build()), captor.getValue());
+
+    }
+
+    @Test
+    void onCitiesChangedDeletesScoreOfRemovedCity() {
+
+        //given
+        when(citiesRepository.findAllById(Set.of(1))).thenReturn(List.of());
+        //when
+        classToTest.onCitiesChanged(new CitiesChangedEvent(Set.of(1)));
+        //then
+        verify(cityPermutationScoreRepository).deleteAllByIdInBatch(Set.of(1));
+        verify(cityPermutationScoreRepository, never()).saveAll(any());
+        verifyNoInteractions(dictionaryService);
+
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onCitiesChangedScoresNormalizedName() {
+
+        //given
+        when(citiesRepository.findAllById(Set.of(1))).thenReturn(List.of(buildEntity(1, "Dén-Zost")));
+        when(dictionaryService.findDictionary(5, 7)).thenReturn(AnagramIndex.of(List.of("dozen", "lited")));
+        //when
+        classToTest.onCitiesChanged(new CitiesChangedEvent(Set.of(1)));
+        //then
+        ArgumentCaptor<List<CityPermutationScoreEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(cityPermutationScoreRepository).saveAll(captor.capture());
+        assertEquals(List.of(CityPermutationScoreEntity.builder()
+                .cityId(1)
+                .cityName("Dén-Zost")
+                .wordCount(1)
+                .words(List.of("dozen"))
+                .build()), captor.getValue());
+        verify(cityPermutationScoreRepository, never()).deleteAllByIdInBatch(any());
+
+    }
+
+    private CityEntity buildEntity(int id, String name) {
+        return CityEntity.builder()
+                .id(id)
+                .name(name)
+                .build();
+    }
+
+    private NormalizedCity buildNormalized(int id, String name) {
+        return NormalizedCity.builder()
+                .city(City.builder()
+                        .id(id)
+                        .name(name)
+                        .build())
+                .normalizedName(name)
+                .build();
+    }
+
+}
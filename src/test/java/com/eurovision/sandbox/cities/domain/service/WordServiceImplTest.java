@@ -0,0 +1,102 @@
+package com.eurovision.sandbox.cities.domain.service;
+
+import com.eurovision.sandbox.cities.domain.component.DictionaryService;
+import com.eurovision.sandbox.cities.domain.exception.BadRequestException;
+import com.eurovision.sandbox.cities.domain.index.AnagramIndex;
+import com.eurovision.sandbox.cities.dto.AnagramsResponseDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WordServiceImplTest {
+
+    @Mock
+    private DictionaryService dictionaryService;
+
+    WordServiceImpl classToTest;
+
+    @BeforeEach
+    void setUp() {
+        classToTest = new WordServiceImpl(dictionaryService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void findAnagrams() {
+
+        //given
+        when(dictionaryService.findDictionary(1, WordServiceImpl.MAX_LETTERS)).thenReturn(AnagramIndex.of(List.of(
+                "zen", "dozen", "Zéndo", "dozens", "breed"
+        )));
+        //when
+        AnagramsResponseDto actualResult = classToTest.findAnagrams("Den-Zost", 3, null);
+        //then
+        assertEquals(AnagramsResponseDto.builder()
+                .letters("denzost")
+                .words(List.of("zen", "dozen", "zendo", "dozens"))
+                .build(), actualResult);
+        //Every range is looked up in the same dictionary
+        assertEquals(List.of("dozen", "zendo"), classToTest.findAnagrams("denzost", 5, 5).getWords());
+        verify(dictionaryService, times(2)).findDictionary(1, WordServiceImpl.MAX_LETTERS);
+
+    }
+
+    @Test
+    void findAnagramsCountsLettersOutsideBasicPlaneOnce() {
+
+        //given
+        when(dictionaryService.findDictionary(1, WordServiceImpl.MAX_LETTERS)).thenReturn(AnagramIndex.of(List.of(
+                "dozen"
+        )));
+        //Deseret letters take two chars each, so these 30 letters are 55 chars long
+        String letters = "\uD801\uDC28".repeat(25) + "dozen";
+        //when
+        AnagramsResponseDto actualResult = classToTest.findAnagrams(letters, 5, null);
+        //then
+        assertEquals(List.of("dozen"), actualResult.getWords());
+
+    }
+
+    @Test
+    void findAnagramsOfLettersOutsideBasicPlane() {
+
+        //given
+        //Deseret letters, each one taking two chars
+        String ew = "\uD801\uDC28";
+        String ee = "\uD801\uDC29";
+        when(dictionaryService.findDictionary(1, WordServiceImpl.MAX_LETTERS)).thenReturn(AnagramIndex.of(List.of(
+                ew, ew + ee, ee + ew
+        )));
+        //when
+        AnagramsResponseDto actualResult = classToTest.findAnagrams(ee + ew, 1, null);
+        //then
+        //Words are as long as the two letters by default
+        assertEquals(List.of(ew, ee + ew, ew + ee), actualResult.getWords());
+        assertEquals(List.of(ee + ew, ew + ee), classToTest.findAnagrams(ee + ew, 2, 2).getWords());
+        assertEquals(List.of(ew), classToTest.findAnagrams(ee + ew, 1, 1).getWords());
+
+    }
+
+    @Test
+    void findAnagramsWithoutLetters() {
+        assertThrows(BadRequestException.class, () -> classToTest.findAnagrams("1-2 3", 1, null));
+        verifyNoInteractions(dictionaryService);
+    }
+
+    @Test
+    void findAnagramsWithWrongLengths() {
+        assertThrows(BadRequestException.class, () -> classToTest.findAnagrams("denzost", 0, 5));
+        assertThrows(BadRequestException.class, () -> classToTest.findAnagrams("denzost", 5, 4));
+        assertThrows(BadRequestException.class, () -> classToTest.findAnagrams("a".repeat(31), 1, null));
+        verifyNoInteractions(dictionaryService);
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.eurovision.sandbox.cities.rest.controller;
+
+import com.eurovision.sandbox.cities.domain.component.DataVersionService;
+import com.eurovision.sandbox.cities.domain.component.WordService;
+import com.eurovision.sandbox.cities.domain.model.DataVersion;
+import com.eurovision.sandbox.cities.dto.AnagramsResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(WordsController.class)
+class WordsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private WordService wordService;
+
+    @MockBean
+    private DataVersionService dataVersionService;
+
+    @BeforeEach
+    void setUp() {
+        when(dataVersionService.findWordsVersion()).thenReturn(DataVersion.builder()
+                .eTag("W/\"w3\"")
+                .lastModified(-1)
+                .build());
+    }
+
+    @Test
+    void findAnagramsVariesByAccept() throws Exception {
+
+        //given
+        when(wordService.findAnagrams("denzost", 5, 5)).thenReturn(AnagramsResponseDto.builder()
+                .letters("denzost")
+                .words(List.of("dozen", "zendo"))
+                .build());
+        //then
+        mockMvc.perform(get("/api/words/anagrams?letters=denzost&min=5&max=5").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"w3\""))
+                .andExpect(header().stringValues(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+
+    }
+
+    @Test
+    void findAnagramsNotModifiedVariesByAccept() throws Exception {
+
+        //then
+        //A cache revalidating a stored response of one format must not reuse it for another one
+        mockMvc.perform(get("/api/words/anagrams?letters=denzost").header(HttpHeaders.IF_NONE_MATCH, "W/\"w3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        verifyNoInteractions(wordService);
+
+    }
+
+}